@@ -0,0 +1,195 @@
+package application;
+
+import java.util.Arrays;
+
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import model.CellState;
+import model.ILife;
+import model.Shaded;
+
+/**
+ * A downsampled picture of the world, for when cells are too small to draw
+ * individually (see {@link Grid#LOD_CELL_SIZE}).
+ * <p>
+ * Each pixel stands for a square block of cells, and is shaded between the
+ * color of dead cells and the average color of the live cells in the block,
+ * according to the fraction that are alive. Changed cells only mark their
+ * block as dirty; the blocks are recounted from the model in
+ * {@link #update}, so the cost per frame is bounded by the number of pixels
+ * rather than the number of changes.
+ * <p>
+ * Blocks are read from the model a whole row of blocks at a time, with
+ * {@link ILife#getRegion}.
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+final class DensityImage {
+	private static final CellState[] STATES = CellState.values();
+
+	private final Palette palette;
+	private final int nrows;
+	private final int ncols;
+	private final int blockSize;
+	private final int width;
+	private final int height;
+
+	private final WritableImage image;
+	private final int[] pixels;
+
+	// blocks to recount, each listed once
+	private final boolean[] dirty;
+	private final int[] dirtyList;
+	private int ndirty;
+
+	private final byte[] strip; // a row of blocks, from getRegion
+
+	/**
+	 * @param blockSize the number of cells along each side of a block
+	 */
+	DensityImage(Palette palette, int nrows, int ncols, int blockSize) {
+		this.palette = palette;
+		this.nrows = nrows;
+		this.ncols = ncols;
+		this.blockSize = blockSize;
+		this.width = (ncols + blockSize - 1) / blockSize;
+		this.height = (nrows + blockSize - 1) / blockSize;
+
+		this.image = new WritableImage(width, height);
+		this.pixels = new int[width * height];
+		this.dirty = new boolean[width * height];
+		this.dirtyList = new int[width * height];
+		this.strip = new byte[blockSize * ncols];
+	}
+
+	boolean fits(int nrows, int ncols, int blockSize) {
+		return nrows == this.nrows && ncols == this.ncols && blockSize == this.blockSize;
+	}
+
+	WritableImage image() {
+		return image;
+	}
+
+	/**
+	 * Recounts every block.
+	 */
+	void redraw(ILife model) {
+		for (int blockRow = 0; blockRow < height; blockRow++) {
+			readStrip(model, blockRow);
+
+			for (int blockCol = 0; blockCol < width; blockCol++)
+				pixels[blockRow * width + blockCol] = shade(model, blockRow, blockCol);
+		}
+
+		ndirty = 0;
+		Arrays.fill(dirty, false);
+		image.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(),
+		    pixels, 0, width);
+	}
+
+	void markDirty(int row, int col) {
+		int block = (row / blockSize) * width + col / blockSize;
+
+		if (!dirty[block]) {
+			dirty[block] = true;
+			dirtyList[ndirty++] = block;
+		}
+	}
+
+	boolean isDirty() {
+		return ndirty > 0;
+	}
+
+	/**
+	 * Recounts the dirty blocks.
+	 */
+	void update(ILife model) {
+		var writer = image.getPixelWriter();
+
+		// In row-major order, so each row of blocks is read once
+		Arrays.sort(dirtyList, 0, ndirty);
+		int stripRow = -1;
+
+		for (int i = 0; i < ndirty; i++) {
+			int block = dirtyList[i];
+			int blockRow = block / width;
+			int blockCol = block % width;
+
+			if (blockRow != stripRow) {
+				readStrip(model, blockRow);
+				stripRow = blockRow;
+			}
+
+			dirty[block] = false;
+			pixels[block] = shade(model, blockRow, blockCol);
+			writer.setArgb(blockCol, blockRow, pixels[block]);
+		}
+
+		ndirty = 0;
+	}
+
+	/**
+	 * Reads the cells of a row of blocks into {@link #strip}.
+	 */
+	private void readStrip(ILife model, int blockRow) {
+		int row0 = blockRow * blockSize;
+		model.getRegion(row0, 0, Math.min(blockSize, nrows - row0), ncols, strip);
+	}
+
+	/**
+	 * @return the color of the given block, according to {@link #strip}
+	 */
+	private int shade(ILife model, int blockRow, int blockCol) {
+		int row0 = blockRow * blockSize;
+		int col0 = blockCol * blockSize;
+		int h = Math.min(blockSize, nrows - row0);
+		int w = Math.min(blockSize, ncols - col0);
+
+		int count = 0;
+		int r = 0, g = 0, b = 0;
+
+		for (int i = 0; i < h; i++)
+			for (int j = 0; j < w; j++) {
+				byte state = strip[i * ncols + col0 + j];
+
+				if (state == CellState.DEAD.ordinal())
+					continue;
+
+				int argb = argb(model, row0 + i, col0 + j, STATES[state]);
+				r += (argb >> 16) & 0xFF;
+				g += (argb >> 8) & 0xFF;
+				b += argb & 0xFF;
+				count++;
+			}
+
+		return mix(row0, col0, h * w, count, r, g, b);
+	}
+
+	private int argb(ILife model, int row, int col, CellState state) {
+		return (model instanceof Shaded shaded)
+		    ? palette.argb(Palette.rampIndex(shaded.shade(row, col), shaded.shades()))
+		    : palette.argb(row, col, state);
+	}
+
+	/**
+	 * Mixes the average live color with the dead color, by the fraction alive.
+	 *
+	 * @param red sum of the red components of the live cells (and so on)
+	 */
+	private int mix(int row0, int col0, int cells, int live, int red, int green, int blue) {
+		int dead = palette.argb(row0, col0, CellState.DEAD);
+
+		if (live == 0)
+			return dead;
+
+		return 0xFF000000
+		    | mix((dead >> 16) & 0xFF, red / live, live, cells) << 16
+		    | mix((dead >> 8) & 0xFF, green / live, live, cells) << 8
+		    | mix(dead & 0xFF, blue / live, live, cells);
+	}
+
+	private static int mix(int dead, int alive, int live, int cells) {
+		return (dead * (cells - live) + alive * live) / cells;
+	}
+}
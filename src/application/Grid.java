@@ -1,13 +1,19 @@
 package application;
 
+import java.util.Arrays;
+
+import javafx.application.Platform;
+import javafx.scene.SnapshotParameters;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.ScrollPane;
+import javafx.scene.image.Image;
 import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Region;
 import javafx.scene.paint.Color;
-import javafx.scene.paint.Paint;
+import javafx.scene.transform.Transform;
 import model.CellState;
-import model.ILife;
+import model.Shaded;
 
 /**
  * Abstract base class for rectangular grids.
@@ -15,6 +21,10 @@ import model.ILife;
  * This class is a just a thin wrapper over the controller's canvas. It handles
  * the visual display of the data in the controller's model.
  * <p>
+ * Anything that doesn't depend on the model (e.g., grid lines) goes on a
+ * separate overlay canvas stacked on top, which is only redrawn when the size
+ * of the grid changes. The cell canvas beneath then only needs the cells.
+ * <p>
  * Originally, all of this code was in the controller, but for ease of switching
  * between grid types, it was moved out. It is still heavily tied to the
  * {@link ViewController} class.
@@ -29,8 +39,10 @@ abstract class Grid {
 	final ScrollPane container;
 	final Canvas canvas;
 	final GraphicsContext graphics;
+	final Canvas overlay;
+	final GraphicsContext overlayGraphics;
 
-	Color primaryColor = Color.BLACK;
+	final Palette palette = new Palette(Color.BLACK);
 	static final Color TILE_BORDER_COLOR = Color.rgb(87, 111, 141);
 	static final Color AXIS_COLOR = Color.GRAY;
 
@@ -44,16 +56,71 @@ abstract class Grid {
 
 	private boolean modelNeedsResize;
 
-	protected Grid(ViewController masterControl, Canvas canvas, ScrollPane container) {
+	/**
+	 * At or below this cell size, cells are too small to draw individually, so
+	 * the world is drawn as a {@link DensityImage} instead.
+	 */
+	static final int LOD_CELL_SIZE = 3;
+
+	/** Largest density image, for when the grid hasn't been laid out yet */
+	private static final int MAX_DENSITY_IMAGE_SIZE = 2048;
+
+	// While zoomed out, the canvas is the density image, with each block of cells
+	// blockSize across drawn as a square of densityScale pixels.
+	private int blockSize;
+	private int densityScale;
+	private DensityImage densityImage; // non-null while zoomed out
+	private boolean flushScheduled;
+
+	// Cells changed since the last flush, keyed by (cell index << 32 | order of
+	// arrival) so that sorting puts them in row-major order, latest change last.
+	private long[] dirtyKeys = new long[256];
+	private byte[] dirtyColors = new byte[256]; // palette index, by order of arrival
+	private int ndirty;
+
+	// The dirty cells with duplicates dropped, as passed to drawDirty()
+	private int[] flushCells = new int[256];
+	private byte[] flushColors = new byte[256];
+
+	private long drawCommands;
+
+	protected Grid(ViewController masterControl, Canvas canvas, Canvas overlay,
+	    ScrollPane container) {
 		this.masterControl = masterControl;
 		this.container = container;
 		this.canvas = canvas;
 		this.graphics = canvas.getGraphicsContext2D();
+		this.overlay = overlay;
+		this.overlayGraphics = overlay.getGraphicsContext2D();
 		// Enable click-to-toggle functionality.
 		canvas.setOnMouseClicked(this::toggleDisplayCell);
 	}
 
-	abstract int[] toRowColIndex(double x, double y);
+	/**
+	 * @return the row and column of the cell at the given point on the canvas
+	 *         (which may be outside the world, if the point is)
+	 */
+	final int[] toRowColIndex(double x, double y) {
+		if (isZoomedOut())
+			return new int[] { Math.min((int) (y / densityScale) * blockSize, nrows - 1),
+			    Math.min((int) (x / densityScale) * blockSize, ncols - 1) };
+
+		return toTileIndex(x, y);
+	}
+
+	/**
+	 * @return the x- (or y-) coordinate of the pixel of the density image that
+	 *         holds the given column (or row)
+	 */
+	protected int toDensityCoord(int index) {
+		return index / blockSize * densityScale;
+	}
+
+	/**
+	 * @return the row and column of the tile at the given point on the canvas,
+	 *         when the cells are drawn as tiles
+	 */
+	abstract int[] toTileIndex(double x, double y);
 
 	int nrows() {
 		return nrows;
@@ -89,10 +156,21 @@ abstract class Grid {
 		resize();
 	}
 
+	/**
+	 * Sizes the canvas for drawing each cell as a tile.
+	 */
 	abstract protected void resizeCanvas();
 
 	final void resize() {
-		resizeCanvas();
+		if (isZoomedOut())
+			resizeDensityCanvas();
+		else
+			resizeCanvas();
+
+		overlay.setWidth(canvas.getWidth());
+		overlay.setHeight(canvas.getHeight());
+		overlayGraphics.clearRect(0, 0, overlay.getWidth(), overlay.getHeight());
+		drawOverlay();
 		masterControl.recenterCanvas();
 
 		if (modelNeedsResize) {
@@ -103,53 +181,223 @@ abstract class Grid {
 		redraw();
 	}
 
-	abstract void redraw();
+	/**
+	 * Redraws the whole grid from the model.
+	 */
+	final void redraw() {
+		var event = new GridEvents.Redraw();
+		event.begin();
+
+		ndirty = 0; // the model has the latest states anyway
+
+		if (isZoomedOut())
+			redrawDensity();
+		else {
+			densityImage = null;
+			redrawAll();
+		}
+
+		event.commit(this);
+	}
+
+	/**
+	 * @return whether cells are too small to be drawn individually
+	 */
+	boolean isZoomedOut() {
+		return cellSize <= LOD_CELL_SIZE;
+	}
+
+	/**
+	 * Sizes the canvas to the density image, which fits the whole world into the
+	 * space the grid has, so redrawing costs no more than the screen can show,
+	 * however large the world. Worlds that already fit keep their cell size.
+	 */
+	private void resizeDensityCanvas() {
+		// The space around the scroll pane, since the pane itself shrinks to fit the
+		// canvas
+		Region space = (container.getParent() instanceof Region parent) ? parent : container;
+		var insets = container.getInsets();
+		double width = space.getWidth() - insets.getLeft() - insets.getRight();
+		double height = space.getHeight() - insets.getTop() - insets.getBottom();
+		int across = (width >= 1) ? (int) width : MAX_DENSITY_IMAGE_SIZE;
+		int down = (height >= 1) ? (int) height : MAX_DENSITY_IMAGE_SIZE;
+
+		blockSize = Math.max(1, Math.max(Math.ceilDiv(ncols, across), Math.ceilDiv(nrows, down)));
+		densityScale = (blockSize > 1) ? 1
+		    : Math.max(1, Math.min(cellSize, Math.min(across / Math.max(1, ncols), down / Math.max(1, nrows))));
+
+		canvas.setWidth(Math.ceilDiv(ncols, blockSize) * densityScale);
+		canvas.setHeight(Math.ceilDiv(nrows, blockSize) * densityScale);
+	}
+
+	private void redrawDensity() {
+		if (densityImage == null || !densityImage.fits(nrows, ncols, blockSize))
+			densityImage = new DensityImage(palette, nrows, ncols, blockSize);
+
+		densityImage.redraw(masterControl.getModel());
+		drawDensity();
+	}
+
+	private void drawDensity() {
+		double width = canvas.getWidth();
+		double height = canvas.getHeight();
+
+		graphics.clearRect(0, 0, width, height);
+		graphics.setImageSmoothing(false); // keep the blocks sharp
+		graphics.drawImage(densityImage.image(), 0, 0, width, height);
+		graphics.setImageSmoothing(true);
+	}
+
+	abstract protected void redrawAll();
+
+	/**
+	 * Draws whatever goes over the cells (on a cleared overlay). This is only
+	 * called when the grid is resized.
+	 */
+	protected void drawOverlay() {
+	}
 
 	abstract void toggleDisplayCell(MouseEvent event);
 
-	abstract void setDisplayCell(int row, int col, CellState state);
+	/**
+	 * Callback for {@link model.ILife#step}.
+	 * <p>
+	 * This is passed (as a lambda) to the model so that it can notify the
+	 * controller whenever a cell changes state, allowing the canvas/grid to be
+	 * incrementally updated.
+	 * <p>
+	 * In theory, this should be more efficient than redrawing the whole grid on
+	 * each step, but with GPUs and buffering and caches, maybe not.
+	 * <p>
+	 * The change is only noted here, to be drawn by {@link #flush} along with the
+	 * rest of the frame's changes.
+	 */
+	final void setDisplayCell(int row, int col, CellState state) {
+		if (densityImage != null)
+			densityImage.markDirty(row, col);
+		else {
+			if (ndirty == dirtyKeys.length) {
+				dirtyKeys = Arrays.copyOf(dirtyKeys, 2 * ndirty);
+				dirtyColors = Arrays.copyOf(dirtyColors, 2 * ndirty);
+			}
+
+			long cell = (long) row * ncols + col;
+			dirtyKeys[ndirty] = cell << 32 | ndirty;
+			dirtyColors[ndirty] = (byte) colorIndex(row, col, state);
+			ndirty++;
+		}
+
+		scheduleFlush();
+	}
+
+	/**
+	 * Draws any changes that were noted but not yet drawn. The controller calls
+	 * this at the end of each frame; otherwise it happens before the next pulse
+	 * anyway.
+	 */
+	void flush() {
+		if (densityImage != null) {
+			if (densityImage.isDirty()) {
+				densityImage.update(masterControl.getModel());
+				drawDensity();
+				drawCommands++;
+			}
+		}
+		else if (ndirty > 0)
+			flushDirty();
+	}
+
+	/**
+	 * Sorts the dirty cells into row-major order, keeping only the latest change
+	 * to each, and hands them over to be drawn.
+	 */
+	private void flushDirty() {
+		Arrays.sort(dirtyKeys, 0, ndirty);
+
+		if (flushCells.length < ndirty) {
+			flushCells = new int[dirtyKeys.length];
+			flushColors = new byte[dirtyKeys.length];
+		}
+
+		int count = 0;
+
+		for (int i = 0; i < ndirty; i++) {
+			int cell = (int) (dirtyKeys[i] >>> 32);
+
+			// A later change to the same cell replaces this one.
+			if (i + 1 < ndirty && (int) (dirtyKeys[i + 1] >>> 32) == cell)
+				continue;
+
+			flushCells[count] = cell;
+			flushColors[count] = dirtyColors[(int) dirtyKeys[i]];
+			count++;
+		}
+
+		ndirty = 0;
+		drawCommands += drawDirty(flushCells, flushColors, count);
+	}
+
+	/**
+	 * Draws the given cells, which are in row-major order (as indices
+	 * {@code row * ncols + col}) with no duplicates.
+	 *
+	 * @param colors the palette index for each cell
+	 * @return the number of commands issued to the graphics context
+	 */
+	abstract protected int drawDirty(int[] cells, byte[] colors, int count);
+
+	/**
+	 * @return the number of drawing commands issued so far for changed cells
+	 */
+	long drawCommands() {
+		return drawCommands;
+	}
+
+	private void scheduleFlush() {
+		if (flushScheduled)
+			return;
+
+		flushScheduled = true;
+		Platform.runLater(() -> {
+			flushScheduled = false;
+			flush();
+		});
+	}
 
 	/**
-	 * Returns a custom color depending on provided CellState.
+	 * @return the palette index for a cell, from the ramp if the model has shades
+	 *         of its own
+	 */
+	int colorIndex(int row, int col, CellState state) {
+		if (masterControl.getModel() instanceof Shaded shaded)
+			return Palette.rampIndex(shaded.shade(row, col), shaded.shades());
+
+		return Palette.index(row, col, state);
+	}
+
+	/**
+	 * Returns a custom color depending on provided CellState. Colored states vary
+	 * in shade from cell to cell (but not from one redraw to the next).
 	 *
 	 * @param state CellState
 	 * @return a custom, state-dependent color for drawing a cell
+	 * @see Palette
 	 */
-	protected Color decideColor(CellState state) {
-		switch (state) {
-			case BLUE:
-				if (ILife.RANDOM.nextBoolean())
-					return Color.rgb(50, 90, 130);
-				else
-					return Color.rgb(50, 70, 160);
-			case RED:
-				if (ILife.RANDOM.nextBoolean())
-					return Color.rgb(180, 0, 0);
-				else
-					return Color.rgb(210, 20, 0);
-			case GREEN:
-				if (ILife.RANDOM.nextBoolean())
-					return Color.rgb(80, 130, 0);
-				else
-					return Color.rgb(100, 160, 0);
-			case ALIVE:
-				return primaryColor;
-			default: // DEAD
-				return Color.WHITE;
-		}
+	protected Color decideColor(int row, int col, CellState state) {
+		return palette.color(row, col, state);
 	}
 
 	/**
 	 * The classic rectangular grid, with <em>square</em> tiles.
 	 */
 	static class Classic extends Grid {
-		Classic(ViewController masterControl, Canvas canvas, ScrollPane container) {
-			super(masterControl, canvas, container);
+		Classic(ViewController masterControl, Canvas canvas, Canvas overlay,
+		    ScrollPane container) {
+			super(masterControl, canvas, overlay, container);
 		}
 
-		// For use by controller
 		@Override
-		int[] toRowColIndex(double x, double y) {
+		int[] toTileIndex(double x, double y) {
 			return new int[] { toRowIndex(y), toColIndex(x) };
 		}
 
@@ -190,7 +438,7 @@ abstract class Grid {
 		 * cell.
 		 */
 		@Override
-		void redraw() {
+		protected void redrawAll() {
 			double width = canvas.getWidth();
 			double height = canvas.getHeight();
 
@@ -198,37 +446,52 @@ abstract class Grid {
 			 * We could render each cell by using fillRect() followed by strokeRect() for
 			 * the cell borders. Alternatively, we can draw all the borders as grid lines
 			 * over the whole canvas, and then fill in the cell interiors. We currently,
-			 * take the second approach below.
+			 * take the second approach, with the grid lines on the overlay (see
+			 * drawOverlay()), so here we just clear the background and fill in the
+			 * cells.
 			 */
-			graphics.setFill(Color.WHITE);
+			graphics.setFill(decideColor(0, 0, CellState.DEAD));
 			graphics.fillRect(0, 0, width, height);
-			graphics.setStroke(TILE_BORDER_COLOR);
-			graphics.setLineWidth(2 * CELL_BORDER_WIDTH);
-
-			// Draw vertical grid lines
-			for (int x = 0; x < width; x += cellSize)
-				graphics.strokeLine(x, 0, x, height);
-
-			// Draw horizontal grid lines
-			for (int y = 0; y < height; y += cellSize)
-				graphics.strokeLine(0, y, width, y);
 
 			// Fill in cells which are alive according to the model
 			masterControl.getModel().forAllLife((row, col, state) -> {
-				graphics.setFill(decideColor(state));
+				graphics.setFill(palette.color(colorIndex(row, col, state)));
 
 				double x0 = toXCoord(col);
 				double y0 = toYCoord(row);
 				graphics.fillRect(x0, y0, cellInteriorSize, cellInteriorSize);
 			});
+		}
+
+		/**
+		 * Draws the grid lines (the cell borders) and axes.
+		 */
+		@Override
+		protected void drawOverlay() {
+			double width = overlay.getWidth();
+			double height = overlay.getHeight();
+
+			overlayGraphics.setStroke(TILE_BORDER_COLOR);
+			overlayGraphics.setLineWidth(2 * CELL_BORDER_WIDTH);
+
+			// Grid lines would just cover the cells when zoomed out.
+			if (!isZoomedOut()) {
+				// Draw vertical grid lines
+				for (int x = 0; x < width; x += cellSize)
+					overlayGraphics.strokeLine(x, 0, x, height);
+
+				// Draw horizontal grid lines
+				for (int y = 0; y < height; y += cellSize)
+					overlayGraphics.strokeLine(0, y, width, y);
+			}
 
 			// Draw axis lines a little darker (and maybe thicker?) than normal grid lines
-			graphics.setLineWidth(2 * CELL_BORDER_WIDTH);
-			graphics.setStroke(AXIS_COLOR);
-			int halfX = ncols / 2 * cellSize;
-			int halfY = nrows / 2 * cellSize;
-			graphics.strokeLine(halfX, 0, halfX, height);
-			graphics.strokeLine(0, halfY, width, halfY);
+			overlayGraphics.setLineWidth(2 * CELL_BORDER_WIDTH);
+			overlayGraphics.setStroke(AXIS_COLOR);
+			int halfX = isZoomedOut() ? toDensityCoord(ncols / 2) : ncols / 2 * cellSize;
+			int halfY = isZoomedOut() ? toDensityCoord(nrows / 2) : nrows / 2 * cellSize;
+			overlayGraphics.strokeLine(halfX, 0, halfX, height);
+			overlayGraphics.strokeLine(0, halfY, width, halfY);
 		}
 
 		/**
@@ -241,45 +504,148 @@ abstract class Grid {
 			double y = event.getY();
 
 			// Corresponding grid index
-			int row = toRowIndex(y);
-			int col = toColIndex(x);
-
-			// Top-left coordinates of the cell
-			double x0 = toXCoord(col);
-			double y0 = toYCoord(row);
+			int[] index = toRowColIndex(x, y);
+			int row = index[0];
+			int col = index[1];
 
 			var model = masterControl.getModel();
 
 			if (model.get(row, col) == CellState.DEAD) {
 				model.set(row, col, CellState.ALIVE);
-				graphics.setFill(primaryColor);
+				setDisplayCell(row, col, CellState.ALIVE);
 			}
 			else { // (model.get(row, col) != CellState.DEAD)
 				model.set(row, col, CellState.DEAD);
-				graphics.setFill(Color.WHITE);
+				setDisplayCell(row, col, CellState.DEAD);
 			}
 
-			graphics.fillRect(x0, y0, cellInteriorSize, cellInteriorSize);
+			flush();
+			masterControl.cellEdited(row, col, model.get(row, col));
 		}
 
 		/**
-		 * Callback for {@link model.ILife#step}.
-		 * <p>
-		 * This is passed (as a lambda) to the model so that it can notify the
-		 * controller whenever a cell changes state, allowing the canvas/grid to be
-		 * incrementally updated.
-		 * <p>
-		 * In theory, this should be more efficient than redrawing the whole grid on
-		 * each step, but with GPUs and buffering and caches, maybe not.
+		 * Draws the changed cells as rectangles: horizontal runs of cells with the
+		 * same color are filled together (painting over the borders between them,
+		 * which are hidden by the grid lines on the overlay), and runs matching one
+		 * in the row above are merged into it.
 		 */
 		@Override
-		void setDisplayCell(int row, int col, CellState state) {
-			double x0 = toXCoord(col);
-			double y0 = toYCoord(row);
+		protected int drawDirty(int[] cells, byte[] colors, int count) {
+			// Rectangles that may still grow downwards, ending on the previous row
+			var open = new Rects(count);
+			var next = new Rects(count);
+			fillIndex = -1;
+			int commands = 0;
+
+			int i = 0;
+			while (i < count) {
+				int row = cells[i] / ncols;
+
+				// Nothing changed in the previous row, so nothing can grow.
+				if (row != open.bottom + 1)
+					commands += fillRects(open, 0);
+
+				next.clear(row);
+				int j = 0; // next open rectangle to try to grow
+
+				while (i < count && cells[i] / ncols == row) {
+					int col = cells[i] % ncols;
+					int color = colors[i];
+					int width = 1;
+
+					while (i + width < count && cells[i + width] == cells[i] + width
+					    && colors[i + width] == color && col + width < ncols)
+						width++;
+
+					i += width;
+
+					// Rectangles starting to the left of this run can't grow any more.
+					while (j < open.size && open.col[j] < col)
+						commands += fillRect(open, j++);
+
+					if (j < open.size && open.col[j] == col && open.width[j] == width
+					    && open.color[j] == color)
+						next.add(col, width, open.top[j++], color);
+					else
+						next.add(col, width, row, color);
+				}
+
+				// Fill in whatever didn't grow.
+				for (; j < open.size; j++)
+					commands += fillRect(open, j);
+
+				var rects = open;
+				open = next;
+				next = rects;
+			}
+
+			return commands + fillRects(open, 0);
+		}
+
+		private int fillIndex; // palette index of the current fill, during drawDirty()
+
+		private int fillRects(Rects rects, int from) {
+			int commands = 0;
+
+			for (int i = from; i < rects.size; i++)
+				commands += fillRect(rects, i);
+
+			rects.size = 0;
+			return commands;
+		}
+
+		/**
+		 * Fills in a rectangle of cells, only changing the fill color if needed.
+		 *
+		 * @return the number of commands issued to the graphics context
+		 */
+		private int fillRect(Rects rects, int i) {
+			int commands = 1;
+
+			if (rects.color[i] != fillIndex) {
+				fillIndex = rects.color[i];
+				graphics.setFill(palette.color(fillIndex));
+				commands++;
+			}
+
+			graphics.fillRect(toXCoord(rects.col[i]), toYCoord(rects.top[i]),
+			    (rects.width[i] - 1) * cellSize + cellInteriorSize,
+			    (rects.bottom - rects.top[i]) * cellSize + cellInteriorSize);
+			return commands;
+		}
 
-			graphics.setFill(decideColor(state));
-			graphics.fillRect(x0, y0, cellInteriorSize, cellInteriorSize);
-		};
+		/**
+		 * Rectangles of cells in one color each, all ending on the same row, in
+		 * order from left to right.
+		 */
+		private static final class Rects {
+			final int[] col;
+			final int[] width;
+			final int[] top;
+			final int[] color;
+			int size;
+			int bottom = -2;
+
+			Rects(int capacity) {
+				col = new int[capacity];
+				width = new int[capacity];
+				top = new int[capacity];
+				color = new int[capacity];
+			}
+
+			void clear(int bottom) {
+				this.bottom = bottom;
+				size = 0;
+			}
+
+			void add(int col, int width, int top, int color) {
+				this.col[size] = col;
+				this.width[size] = width;
+				this.top[size] = top;
+				this.color[size] = color;
+				size++;
+			}
+		}
 	}
 
 	/**
@@ -289,12 +655,23 @@ abstract class Grid {
 		/** This is used a lot for intermediate calculations */
 		private static final double SQRT3 = Math.sqrt(3);
 
-		Hex(ViewController masterControl, Canvas canvas, ScrollPane container) {
-			super(masterControl, canvas, container);
+		/** Room around a stamp for the half of the border outside the tile */
+		private static final int STAMP_PADDING = 2 * CELL_BORDER_WIDTH;
+
+		// pre-rendered tiles by palette index, for the cell size (and palette) they
+		// were rendered with
+		private final Image[] stamps = new Image[Palette.SIZE];
+		private int stampCellSize;
+		private int stampPaletteVersion;
+		private double stampWidth;
+		private double stampHeight;
+
+		Hex(ViewController masterControl, Canvas canvas, Canvas overlay, ScrollPane container) {
+			super(masterControl, canvas, overlay, container);
 		}
 
 		@Override
-		int[] toRowColIndex(double x, double y) {
+		int[] toTileIndex(double x, double y) {
 			/*
 			 * NOTE: The canvas coordinate has the center of the top-left hexagon at (W/2,
 			 * H/2) where W, H are the width and height of the hexagon. The pixel to cube
@@ -392,24 +769,71 @@ abstract class Grid {
 			return SQRT3 / 2 * cellInteriorSize;
 		}
 
-		private void drawHexTile(int row, int col, Paint interiorFill) {
+		/**
+		 * Draws a tile by stamping the pre-rendered image for its color, which is
+		 * much cheaper than stroking and filling a polygon. The stamp is placed at
+		 * the nearest whole pixel, which keeps it crisp (the borders are wide enough
+		 * to hide the rounding).
+		 */
+		private void drawHexTile(int row, int col, int paletteIndex) {
+			var stamp = stamp(paletteIndex);
+			double x = toXCoord(row, col) - hexInteriorWidth() / 2 - STAMP_PADDING;
+			double y = toYCoord(row, col) - STAMP_PADDING;
+
+			graphics.drawImage(stamp, Math.round(x), Math.round(y), stampWidth, stampHeight);
+		}
+
+		/**
+		 * @return the stamp for the given palette entry at the current cell size
+		 */
+		private Image stamp(int paletteIndex) {
+			if (stampCellSize != cellSize || stampPaletteVersion != palette.version()) {
+				Arrays.fill(stamps, null);
+				stampCellSize = cellSize;
+				stampPaletteVersion = palette.version();
+				stampWidth = Math.ceil(hexInteriorWidth()) + 2 * STAMP_PADDING;
+				stampHeight = Math.ceil(hexInteriorHeight()) + 2 * STAMP_PADDING;
+			}
+
+			if (stamps[paletteIndex] == null)
+				stamps[paletteIndex] = renderStamp(palette.color(paletteIndex));
+
+			return stamps[paletteIndex];
+		}
+
+		/**
+		 * Renders a single tile, including its border, on a transparent background.
+		 * This is rendered at the screen's scale, so that it stays sharp on high-DPI
+		 * displays.
+		 */
+		private Image renderStamp(Color interiorFill) {
 			// Assume we're drawing the hexagon in "pointy-top" orientation.
 			// (x0, y0) is the coordinate of the top point.
-			double x0 = toXCoord(row, col);
-			double y0 = toYCoord(row, col);
-
 			double dx = hexInteriorWidth() / 2;
 			double dy = hexInteriorHeight() / 4;
+			double x0 = STAMP_PADDING + dx;
+			double y0 = STAMP_PADDING;
 
 			double[] xs = { x0, x0 + dx, x0 + dx, x0, x0 - dx, x0 - dx };
 			double[] ys = { y0, y0 + dy, y0 + 3 * dy, y0 + 4 * dy, y0 + 3 * dy, y0 + dy };
 
-			graphics.setStroke(TILE_BORDER_COLOR);
-			graphics.setLineWidth(3 * CELL_BORDER_WIDTH);
-			graphics.strokePolygon(xs, ys, 6);
+			var scratch = new Canvas(stampWidth, stampHeight);
+			var g = scratch.getGraphicsContext2D();
+
+			g.setStroke(TILE_BORDER_COLOR);
+			g.setLineWidth(3 * CELL_BORDER_WIDTH);
+			g.strokePolygon(xs, ys, 6);
+
+			g.setFill(interiorFill);
+			g.fillPolygon(xs, ys, 6);
 
-			graphics.setFill(interiorFill);
-			graphics.fillPolygon(xs, ys, 6);
+			var window = (canvas.getScene() == null) ? null : canvas.getScene().getWindow();
+			double scale = (window == null) ? 1 : window.getOutputScaleX();
+
+			var params = new SnapshotParameters();
+			params.setFill(Color.TRANSPARENT);
+			params.setTransform(Transform.scale(scale, scale));
+			return scratch.snapshot(params, null);
 		}
 
 		/**
@@ -427,17 +851,22 @@ abstract class Grid {
 		 * cell.
 		 */
 		@Override
-		void redraw() {
+		protected void redrawAll() {
 			double width = canvas.getWidth();
 			double height = canvas.getHeight();
 
 			graphics.clearRect(0, 0, width, height);
 
 			var model = masterControl.getModel();
+			var states = CellState.values();
+			byte[] rowStates = new byte[ncols];
+
+			for (int row = 0; row < nrows; row++) {
+				model.getRegion(row, 0, 1, ncols, rowStates);
 
-			for (int row = 0; row < nrows; row++)
 				for (int col = 0; col < ncols; col++)
-					drawHexTile(row, col, decideColor(model.get(row, col)));
+					drawHexTile(row, col, colorIndex(row, col, states[rowStates[col]]));
+			}
 		}
 
 		/**
@@ -462,27 +891,27 @@ abstract class Grid {
 
 			if (model.get(row, col) == CellState.DEAD) {
 				model.set(row, col, CellState.ALIVE);
-				drawHexTile(row, col, primaryColor);
+				setDisplayCell(row, col, CellState.ALIVE);
 			}
 			else {
 				model.set(row, col, CellState.DEAD);
-				drawHexTile(row, col, Color.WHITE);
+				setDisplayCell(row, col, CellState.DEAD);
 			}
+
+			flush();
+			masterControl.cellEdited(row, col, model.get(row, col));
 		}
 
 		/**
-		 * Callback for {@link model.ILife#step}.
-		 * <p>
-		 * This is passed (as a lambda) to the model so that it can notify the
-		 * controller whenever a cell changes state, allowing the canvas/grid to be
-		 * incrementally updated.
-		 * <p>
-		 * In theory, this should be more efficient than redrawing the whole grid on
-		 * each step, but with GPUs and buffering and caches, maybe not.
+		 * Hexagons can't be joined into runs like squares, but each tile is already a
+		 * single stamp, so this just draws them in order.
 		 */
 		@Override
-		void setDisplayCell(int row, int col, CellState state) {
-			drawHexTile(row, col, decideColor(state));
-		};
+		protected int drawDirty(int[] cells, byte[] colors, int count) {
+			for (int i = 0; i < count; i++)
+				drawHexTile(cells[i] / ncols, cells[i] % ncols, colors[i]);
+
+			return count;
+		}
 	}
 }
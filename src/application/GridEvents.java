@@ -0,0 +1,95 @@
+package application;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder events for drawing the grid, the rendering counterpart to
+ * {@link model.LifeEvents}.
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+final class GridEvents {
+	private GridEvents() {
+	}
+
+	/**
+	 * Fields common to all grid events.
+	 */
+	@Category({ "Game of Life", "Rendering" })
+	@StackTrace(false)
+	abstract static class GridEvent extends Event {
+		@Label("Grid")
+		String grid;
+
+		@Label("Model")
+		String model;
+
+		@Label("Rows")
+		int rows;
+
+		@Label("Columns")
+		int cols;
+
+		@Label("Cell Size")
+		int cellSize;
+
+		/** Fills in the fields common to all grid events. */
+		void describe(Grid grid) {
+			this.grid = grid.getClass().getSimpleName();
+			this.model = grid.masterControl.getModel().getClass().getSimpleName();
+			this.rows = grid.nrows();
+			this.cols = grid.ncols();
+			this.cellSize = grid.cellSize;
+		}
+	}
+
+	@Name("lifeapp.Redraw")
+	@Label("Redraw")
+	@Description("Redrawing the whole grid from the model")
+	static final class Redraw extends GridEvent {
+		void commit(Grid grid) {
+			end();
+
+			if (shouldCommit()) {
+				describe(grid);
+				commit();
+			}
+		}
+	}
+
+	@Name("lifeapp.DisplayBatch")
+	@Label("Display Batch")
+	@Description("The cells redrawn for one generation; the duration also covers the model's work in between")
+	static final class DisplayBatch extends GridEvent {
+		@Label("Changed Cells")
+		long changedCells;
+
+		@Label("Draw Time")
+		@Description("Time spent drawing the changed cells")
+		@Timespan(Timespan.NANOSECONDS)
+		long drawTime;
+
+		@Label("Draw Commands")
+		@Description("Graphics commands issued for the changed cells, fewer when they can be drawn together")
+		long drawCommands;
+
+		void commit(Grid grid, long changedCells, long drawTime, long drawCommands) {
+			end();
+
+			if (shouldCommit()) {
+				describe(grid);
+				this.changedCells = changedCells;
+				this.drawTime = drawTime;
+				this.drawCommands = drawCommands;
+				commit();
+			}
+		}
+	}
+}
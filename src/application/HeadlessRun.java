@@ -0,0 +1,72 @@
+package application;
+
+import model.ChangeSet;
+import model.ILife;
+import model.LifeEvents;
+import model.SeededRandom;
+
+/**
+ * Runs a model without the GUI, for timing engines against each other. Given
+ * the same seed, every model starts from the same soup (as far as the model's
+ * own randomization allows), so runs are reproducible.
+ * <p>
+ * Usage:
+ *
+ * <pre>
+ * HeadlessRun MODEL ROWS COLS GENERATIONS [SEED [DENSITY]]
+ * </pre>
+ *
+ * where {@code MODEL} is the simple name of a class in the {@code model}
+ * package, e.g., {@code GraphLife}. If no seed is given, an arbitrary one is
+ * picked and reported, so that the run can be repeated. The density is the
+ * fraction of cells alive to start with (0.5 by default).
+ * <p>
+ * The generations are run with {@link ILife#advance}, so intermediate states
+ * aren't reported and only the net change is counted.
+ * <p>
+ * The graph models can number their cells along a space-filling curve instead
+ * of row by row, e.g., with {@code -Dlifeapp.vertexOrder=hilbert}, which is
+ * worth comparing on worlds too big for the cache.
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+public class HeadlessRun {
+	public static void main(String[] args) throws Exception {
+		if (args.length < 4 || args.length > 6) {
+			System.err.println("usage: HeadlessRun MODEL ROWS COLS GENERATIONS [SEED [DENSITY]]");
+			System.exit(2);
+		}
+
+		var modelClass = Class.forName("model." + args[0]).asSubclass(ILife.class);
+		int nrows = Integer.parseInt(args[1]);
+		int ncols = Integer.parseInt(args[2]);
+		int generations = Integer.parseInt(args[3]);
+		long seed = (args.length >= 5) ? Long.parseLong(args[4]) : SeededRandom.newSeed();
+		double density = (args.length >= 6) ? Double.parseDouble(args[5]) : 0.5;
+
+		ILife model = modelClass.getConstructor().newInstance();
+		model.resize(nrows, ncols);
+		model.reseed(seed);
+
+		long start = System.nanoTime();
+		model.randomize(density);
+		double randomizeSeconds = (System.nanoTime() - start) / 1e9;
+
+		System.out.printf("%s %dx%d, seed %d, initial population %d (randomized in %.3f s)%n",
+		    args[0], nrows, ncols, seed, model.populationCount(), randomizeSeconds);
+
+		var changes = new ChangeSet(nrows, ncols);
+
+		start = System.nanoTime();
+		var event = new LifeEvents.Advance();
+		event.begin();
+		int steps = model.advance(generations, changes);
+		event.commit(model, changes.size());
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.out.printf("%d generations in %.3f s (%.1f per second), %d cells changed%n", steps,
+		    seconds, steps / seconds, changes.size());
+		System.out.printf("final population %d%n", model.populationCount());
+	}
+}
@@ -49,8 +49,13 @@ public class LifeApp extends Application {
 
 			stage.setTitle("The Game of Life, Version 2");
 			stage.setScene(scene);
-			// Close any other windows if the main stage is closed.
-			stage.setOnHidden(e -> Platform.exit());
+			// Close any other windows if the main stage is closed (after finishing
+			// up any recording in progress).
+			ViewController controller = loader.getController();
+			stage.setOnHidden(e -> {
+				controller.shutdown();
+				Platform.exit();
+			});
 			stage.show();
 		}
 		catch (Exception e) {
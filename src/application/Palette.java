@@ -0,0 +1,145 @@
+package application;
+
+import javafx.scene.paint.Color;
+import model.CellState;
+
+/**
+ * Precomputed cell colors, shared by the renderers.
+ * <p>
+ * Colored states come in a few shades so that regions of one color don't look
+ * flat. The shade of a cell is picked by hashing its coordinates, so a cell
+ * keeps the same shade between redraws, and no random numbers (or new
+ * {@link Color} objects) are needed while drawing.
+ * <p>
+ * Models with more shades than states (see {@link model.Shaded}) are drawn
+ * from a ramp of {@value #RAMP_SIZE} entries after those of the states, which
+ * fades from the dead color through amber to the primary color.
+ * <p>
+ * Each entry is available both as a {@link Color}, for the graphics context,
+ * and as packed ARGB, for writing pixels directly. Entries are identified by
+ * an index from {@link #index}, which is also handy for caching anything else
+ * per color (e.g., tile stamps).
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+final class Palette {
+	/** Shades per state (a power of 2) */
+	static final int VARIANTS = 4;
+
+	/** Entries on the ramp for shaded models */
+	static final int RAMP_SIZE = 64;
+
+	private static final int RAMP_START = CellState.values().length * VARIANTS;
+
+	static final int SIZE = RAMP_START + RAMP_SIZE;
+
+	private static final Color RAMP_MIDDLE = Color.rgb(240, 160, 20);
+
+	private final Color[] colors = new Color[SIZE];
+	private final int[] argb = new int[SIZE];
+
+	/** Incremented whenever an entry changes, so that caches can tell */
+	private int version;
+
+	Palette(Color primary) {
+		setShades(CellState.DEAD, Color.WHITE, Color.WHITE);
+		setShades(CellState.BLUE, Color.rgb(50, 90, 130), Color.rgb(50, 70, 160));
+		setShades(CellState.RED, Color.rgb(180, 0, 0), Color.rgb(210, 20, 0));
+		setShades(CellState.GREEN, Color.rgb(80, 130, 0), Color.rgb(100, 160, 0));
+		setPrimary(primary);
+	}
+
+	/**
+	 * @return the color of live cells in single-species models
+	 */
+	Color primary() {
+		return colors[CellState.ALIVE.ordinal() * VARIANTS];
+	}
+
+	void setPrimary(Color color) {
+		setShades(CellState.ALIVE, color, color);
+		setRamp(colors[CellState.DEAD.ordinal() * VARIANTS], color);
+	}
+
+	int version() {
+		return version;
+	}
+
+	/**
+	 * @return the palette entry for a cell in the given state
+	 */
+	static int index(int row, int col, CellState state) {
+		return state.ordinal() * VARIANTS + variant(row, col);
+	}
+
+	/**
+	 * @return the palette entry on the ramp for the given shade, out of the given
+	 *         number
+	 */
+	static int rampIndex(int shade, int shades) {
+		return RAMP_START + (shade * (RAMP_SIZE - 1) + (shades - 1) / 2) / Math.max(shades - 1, 1);
+	}
+
+	Color color(int index) {
+		return colors[index];
+	}
+
+	int argb(int index) {
+		return argb[index];
+	}
+
+	Color color(int row, int col, CellState state) {
+		return colors[index(row, col, state)];
+	}
+
+	int argb(int row, int col, CellState state) {
+		return argb[index(row, col, state)];
+	}
+
+	/**
+	 * Picks a shade by mixing the coordinates (as in a hash function), so that
+	 * neighboring cells don't form visible patterns.
+	 */
+	private static int variant(int row, int col) {
+		int h = row * 0x9E3779B9 + col;
+		h ^= h >>> 16;
+		h *= 0x85EBCA6B;
+		h ^= h >>> 13;
+		return h & (VARIANTS - 1);
+	}
+
+	/** Spreads the shades of a state evenly between the given two colors. */
+	private void setShades(CellState state, Color from, Color to) {
+		for (int i = 0; i < VARIANTS; i++) {
+			var color = from.interpolate(to, (double) i / (VARIANTS - 1));
+			int index = state.ordinal() * VARIANTS + i;
+
+			colors[index] = color;
+			argb[index] = toArgb(color);
+		}
+
+		version++;
+	}
+
+	/** Fades from the dead color, through amber halfway, to the live color. */
+	private void setRamp(Color dead, Color alive) {
+		for (int i = 0; i < RAMP_SIZE; i++) {
+			double t = (double) i / (RAMP_SIZE - 1);
+			var color = (t < 0.5) ? dead.interpolate(RAMP_MIDDLE, 2 * t)
+			    : RAMP_MIDDLE.interpolate(alive, 2 * t - 1);
+
+			colors[RAMP_START + i] = color;
+			argb[RAMP_START + i] = toArgb(color);
+		}
+
+		version++;
+	}
+
+	private static int toArgb(Color color) {
+		return (int) Math.round(color.getOpacity() * 255) << 24
+		    | (int) Math.round(color.getRed() * 255) << 16
+		    | (int) Math.round(color.getGreen() * 255) << 8
+		    | (int) Math.round(color.getBlue() * 255);
+	}
+}
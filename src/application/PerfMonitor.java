@@ -0,0 +1,165 @@
+package application;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Collects per-frame timings for the performance overlay (toggled along with
+ * the debug text), to help tell whether the model or the canvas is the
+ * bottleneck. A frame is normally one generation, but can be several in turbo
+ * mode.
+ * <p>
+ * Everything is measured on the FX thread:
+ * <ul>
+ * <li><em>step</em> - time spent in the model, i.e., everything but
+ * render</li>
+ * <li><em>render</em> - time spent issuing drawing commands for changed
+ * cells</li>
+ * <li><em>changed</em> - number of cell changes in the frame</li>
+ * <li><em>alloc</em> - bytes allocated during the frame</li>
+ * </ul>
+ * Each is summarized over the last {@link #WINDOW} frames.
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+class PerfMonitor {
+	static final int WINDOW = 256;
+
+	/** Allocation tracking is a HotSpot extension, so it might be unavailable. */
+	private static final com.sun.management.ThreadMXBean THREADS = initThreadBean();
+
+	private final RollingHistogram stepNanos = new RollingHistogram(WINDOW);
+	private final RollingHistogram renderNanos = new RollingHistogram(WINDOW);
+	private final RollingHistogram changedCells = new RollingHistogram(WINDOW);
+	private final RollingHistogram allocatedBytes = new RollingHistogram(WINDOW);
+
+	// Start times of recent frames, and the total generations before each, for
+	// computing the achieved rate
+	private final long[] stamps = new long[WINDOW];
+	private final long[] totals = new long[WINDOW];
+	private int nextStamp;
+	private int numStamps;
+	private long generations;
+
+	// The frame in progress
+	private long start;
+	private long startAllocated;
+	private long render;
+	private long changed;
+
+	private static com.sun.management.ThreadMXBean initThreadBean() {
+		if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+		    && bean.isThreadAllocatedMemorySupported()) {
+			bean.setThreadAllocatedMemoryEnabled(true);
+			return bean;
+		}
+
+		return null;
+	}
+
+	void beginStep() {
+		start = System.nanoTime();
+		startAllocated = allocated();
+		render = 0;
+		changed = 0;
+
+		stamps[nextStamp] = start;
+		totals[nextStamp] = generations;
+		nextStamp = (nextStamp + 1) % WINDOW;
+		numStamps = Math.min(numStamps + 1, WINDOW);
+	}
+
+	/** Accounts for one cell changed by the model. */
+	void cellChanged() {
+		changed++;
+	}
+
+	/** Accounts for time spent drawing. */
+	void rendered(long nanos) {
+		render += nanos;
+	}
+
+	/** @return the number of cells changed so far in the current frame */
+	long changedCells() {
+		return changed;
+	}
+
+	/** @return the time spent drawing so far in the current frame */
+	long renderNanos() {
+		return render;
+	}
+
+	/**
+	 * @param generations the number of generations advanced in the frame
+	 */
+	void endStep(int generations) {
+		long total = System.nanoTime() - start;
+		stepNanos.add(total - render);
+		renderNanos.add(render);
+		changedCells.add(changed);
+
+		if (THREADS != null)
+			allocatedBytes.add(allocated() - startAllocated);
+
+		this.generations += generations;
+	}
+
+	/** Forgets everything, e.g., after a pause (which would skew the rate). */
+	void reset() {
+		stepNanos.clear();
+		renderNanos.clear();
+		changedCells.clear();
+		allocatedBytes.clear();
+		numStamps = 0;
+	}
+
+	/** @return generations per second, over the window */
+	double achievedRate() {
+		if (numStamps < 2)
+			return 0;
+
+		int newest = Math.floorMod(nextStamp - 1, WINDOW);
+		int oldest = Math.floorMod(nextStamp - numStamps, WINDOW);
+		return (totals[newest] - totals[oldest]) * 1e9
+		    / Math.max(stamps[newest] - stamps[oldest], 1);
+	}
+
+	/** @return frames per second, over the window */
+	double frameRate() {
+		if (numStamps < 2)
+			return 0;
+
+		long newest = stamps[Math.floorMod(nextStamp - 1, WINDOW)];
+		long oldest = stamps[Math.floorMod(nextStamp - numStamps, WINDOW)];
+		return (numStamps - 1) * 1e9 / Math.max(newest - oldest, 1);
+	}
+
+	/**
+	 * @return a multiline summary for display
+	 */
+	String summary(int targetRate) {
+		var text = new StringBuilder();
+		text.append(line("step ms", stepNanos, 1e-6));
+		text.append(line("render ms", renderNanos, 1e-6));
+		text.append(line("changed", changedCells, 1));
+
+		if (THREADS != null) {
+			text.append(line("alloc KB", allocatedBytes, 1.0 / 1024));
+			double bytesPerSecond = allocatedBytes.percentile(50) * frameRate();
+			text.append("%-10s %8.1f MB/s (p50)%n".formatted("", bytesPerSecond / (1 << 20)));
+		}
+
+		text.append("%-10s %8.1f / %d target".formatted("tps", achievedRate(), targetRate));
+		return text.toString();
+	}
+
+	private static String line(String label, RollingHistogram histogram, double scale) {
+		return "%-10s min %8.2f  p50 %8.2f  p99 %8.2f%n".formatted(label,
+		    histogram.min() * scale, histogram.percentile(50) * scale,
+		    histogram.percentile(99) * scale);
+	}
+
+	private static long allocated() {
+		return THREADS == null ? 0 : THREADS.getCurrentThreadAllocatedBytes();
+	}
+}
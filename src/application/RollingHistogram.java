@@ -0,0 +1,97 @@
+package application;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of the most recent {@code window} samples, for reporting
+ * percentiles of things like step latency.
+ * <p>
+ * In the style of HdrHistogram, the buckets are log-linear: every power of two
+ * is split into 16 equal sub-buckets, so any nonnegative {@code long} can be
+ * counted in a fixed ~1 K array with a relative error of at most ~6%. The raw
+ * samples are kept in a ring buffer only so that the oldest one can be taken
+ * back out of its bucket once the window is full.
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+class RollingHistogram {
+	private static final int SUB_BITS = 5;
+	private static final int HALF = 1 << (SUB_BITS - 1);
+	private static final int NUM_BUCKETS = (64 - SUB_BITS + 1) * HALF + 2 * HALF;
+
+	private final int[] counts = new int[NUM_BUCKETS];
+	private final long[] samples;
+	private int next;
+	private int size;
+
+	RollingHistogram(int window) {
+		this.samples = new long[window];
+	}
+
+	void add(long value) {
+		value = Math.max(value, 0);
+
+		if (size == samples.length)
+			counts[bucketOf(samples[next])]--;
+		else
+			size++;
+
+		samples[next] = value;
+		next = (next + 1) % samples.length;
+		counts[bucketOf(value)]++;
+	}
+
+	int size() {
+		return size;
+	}
+
+	void clear() {
+		Arrays.fill(counts, 0);
+		next = size = 0;
+	}
+
+	/** @return the (approximate) smallest value in the window */
+	long min() {
+		return percentile(0);
+	}
+
+	/**
+	 * @param p between 0 and 100
+	 * @return the (approximate) value below which p percent of the window falls
+	 */
+	long percentile(double p) {
+		if (size == 0)
+			return 0;
+
+		long rank = Math.max(1, (long) Math.ceil(p / 100 * size));
+		long seen = 0;
+
+		for (int i = 0; i < NUM_BUCKETS; i++) {
+			seen += counts[i];
+
+			if (seen >= rank)
+				return lowestValueIn(i);
+		}
+
+		throw new AssertionError("counts don't add up to the window size");
+	}
+
+	/** Log-linear bucketing: see the class comment. */
+	private static int bucketOf(long value) {
+		if (value < 2 * HALF)
+			return (int) value;
+
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int shift = exponent - SUB_BITS + 1;
+		return shift * HALF + (int) (value >>> shift);
+	}
+
+	private static long lowestValueIn(int bucket) {
+		if (bucket < 2 * HALF)
+			return bucket;
+
+		int shift = bucket / HALF - 1;
+		return (long) (bucket - shift * HALF) << shift;
+	}
+}
@@ -2,8 +2,20 @@ package application;
 
 import static javafx.scene.input.KeyCombination.keyCombination;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import application.component.LiveStyleEditor;
 import application.component.SpinnerBox;
@@ -12,12 +24,27 @@ import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.control.*;
+import javafx.scene.input.Clipboard;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
-import javafx.scene.paint.Color;
 import javafx.scene.text.Text;
+import javafx.stage.FileChooser;
+import model.CellState;
+import model.ChangeSet;
+import model.GenerationFeed;
+import model.History;
 import model.ILife;
+import model.LifeEvents;
+import model.NetworkLife;
+import model.SeededRandom;
+import model.Shaded;
+import model.WorldTransfer;
+import model.io.NetworkReader;
+import model.io.PatternReader;
+import model.io.RunPlayer;
+import model.io.RunRecorder;
+import model.io.SnapshotFile;
 
 /**
  * Controller for the scene graph defined in
@@ -54,22 +81,31 @@ public class ViewController {
 	// center stuff
 	@FXML private ScrollPane centerPane;
 	@FXML private Canvas canvas;
+	@FXML private Canvas overlay;
+	@FXML private Label perfHud;
 
 	// bottom stuff
 	@FXML private Button clearButton;
 	@FXML private Button randomButton;
+	@FXML private Button backButton;
 	@FXML private Button pausePlayButton;
 	@FXML private Button stepButton;
 	@FXML private Button sidebarToggle;
+	@FXML private Slider historySlider;
 	@FXML private Text debugText;
 
 	// sidebar stuff
 	@FXML private VBox sidebar;
 	@FXML private SpinnerBox tpsControl;
+	@FXML private CheckBox turboCheckBox;
+	@FXML private SpinnerBox turboControl;
+	@FXML private SpinnerBox historyControl;
 	@FXML private SpinnerBox cellSizeControl;
 	@FXML private SpinnerBox nrowsControl;
 	@FXML private SpinnerBox ncolsControl;
 	@FXML private ComboBox<String> gridDimensionsComboBox;
+	@FXML private TextField seedField;
+	@FXML private SpinnerBox densityControl;
 
 	@FXML private ToggleGroup gridToggleGroup;
 	@FXML private RadioButton classicRadioButton;
@@ -81,6 +117,12 @@ public class ViewController {
 	@FXML private ColorPicker colorPicker;
 	@FXML private Button styleEditorButton;
 
+	@FXML private Button saveButton;
+	@FXML private Button loadButton;
+	@FXML private Button importButton;
+	@FXML private Button recordButton;
+	@FXML private Button replayButton;
+
 	// ==================
 	// Grid/Canvas stuff
 	// ==================
@@ -89,17 +131,68 @@ public class ViewController {
 	// handle for the implementation of the simulation itself
 	private ILife model = new model.GraphLife();
 
+	// models switched away from, kept (along with their topology, e.g., graphs)
+	// for switching back to the same size of world: only the few most recently
+	// used, and only softly, so the garbage collector drops them when memory runs
+	// low rather than running out
+	private static final int MAX_IDLE_MODELS = 3;
+	private final Map<Class<? extends ILife>, SoftReference<ILife>> idleModels = new LinkedHashMap<>(
+	    16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Class<? extends ILife>, SoftReference<ILife>> eldest) {
+			return size() > MAX_IDLE_MODELS;
+		}
+	};
+
 	// for access from the grid
 	public ILife getModel() {
 		return model;
 	}
 
+	// the world as of each step (or other change), for reading from other threads
+	private final GenerationFeed generationFeed = new GenerationFeed();
+
+	public GenerationFeed generationFeed() {
+		return generationFeed;
+	}
+
+	// cell under the mouse pointer, which is where patterns get pasted
+	private int hoverRow;
+	private int hoverCol;
+
+	// recent generations, for stepping back (see historyControl for the budget)
+	private final History history = new History(64L << 20, 64);
+	private boolean syncingHistorySlider;
+
+	// recording to / playing back from a file (at most one of these is non-null)
+	private static final int RECORDING_KEYFRAME_INTERVAL = 256;
+	private RunRecorder recorder;
+	private RunPlayer player;
+
+	// timings for the performance overlay (toggled along with the debug text)
+	private static final long PERF_HUD_INTERVAL = 250_000_000; // ns
+	private final PerfMonitor perf = new PerfMonitor();
+	private long lastPerfHudUpdate;
+
+	// counts the population of each generation from the feed, off the FX thread,
+	// while the performance overlay is showing
+	private Thread populationWatcher;
+	private volatile long population = -1; // of the latest generation counted, or -1
+
 	// ================
 	// Animation stuff
 	// ================
 	private boolean isPlaying;
 	private long timestamp;
 	private int ticksPerSecond = 2;
+
+	// turbo mode: several steps per frame, drawing only the net change
+	private static final long TURBO_FRAME_BUDGET = 12_000_000; // ns, leaving time to draw
+	private static final int ADVANCE_CHUNK = 16; // steps between checks of the budget
+	private boolean turbo;
+	private int generationsPerFrame;
+	private ChangeSet frameChanges;
+	private boolean coalescing;
 	private int stepCount;
 	private boolean restart;
 
@@ -119,6 +212,7 @@ public class ViewController {
 		// `CTRL+D` to toggle debug text
 		debugText.setVisible(false);
 		debugText.setManaged(false);
+		perfHud.setVisible(false);
 
 		// The scene isn't set until after initialization, so run later.
 		Platform.runLater(this::installHotkeys);
@@ -140,14 +234,17 @@ public class ViewController {
 
 		// For debugging. TODO: delete this
 		canvas.setOnMouseMoved(event -> {
+			int x = (int) event.getX();
+			int y = (int) event.getY();
+			int[] index = grid.toRowColIndex(x, y);
+			hoverRow = index[0];
+			hoverCol = index[1];
+
 			// Displaying step count takes precedence over the mouse position
 			// during simulation or at the end of a simulation that stalls.
 			if (isPlaying || restart)
 				return;
 
-			int x = (int) event.getX();
-			int y = (int) event.getY();
-			int[] index = grid.toRowColIndex(x, y);
 			int r = index[0] + 1; // use 1-based indexing for display
 			int c = index[1] + 1; // use 1-based indexing for display
 			debugText.setText("pos: (%d, %d), cell: [%d, %d]".formatted(x, y, r, c));
@@ -159,11 +256,11 @@ public class ViewController {
 	 */
 	private void setGrid(Toggle selectedToggle) {
 		if (selectedToggle == classicRadioButton) {
-			grid = new Grid.Classic(this, canvas, centerPane);
+			grid = new Grid.Classic(this, canvas, overlay, centerPane);
 			centerPane.getStyleClass().remove("hex-mode");
 		}
 		else {
-			grid = new Grid.Hex(this, canvas, centerPane);
+			grid = new Grid.Hex(this, canvas, overlay, centerPane);
 			centerPane.getStyleClass().add("hex-mode");
 		}
 
@@ -179,14 +276,21 @@ public class ViewController {
 	 */
 	private void initButtonHandlers() {
 		// The timer just calls the model's step() function to advance the
-		// simulation by one step on each tick.
+		// simulation by one step on each tick (or as many as fit in each frame, in
+		// turbo mode).
 		var timer = new AnimationTimer() {
 			@Override
 			public void handle(long now) {
+				if (turbo) {
+					reactToStep(advance(generationsPerFrame, TURBO_FRAME_BUDGET));
+					timestamp = now;
+					return;
+				}
+
 				var tick = Duration.ofSeconds(1).dividedBy(ticksPerSecond);
 
 				if ((now - timestamp) > tick.toNanos()) {
-					reactToStep(model.step(grid::setDisplayCell));
+					reactToStep(stepForward());
 					timestamp = now;
 				}
 			}
@@ -195,15 +299,14 @@ public class ViewController {
 		clearButton.setOnAction(event -> {
 			resetAnimation();
 			model.clear();
+			resetHistory();
 			grid.redraw();
 			debugText.setText("Cleared");
 		});
 
+		// A fresh soup each time (see the seed field to repeat one)
 		randomButton.setOnAction(event -> {
-			model.randomize();
-			grid.redraw();
-			stepCount = 0;
-			restart = false;
+			randomize(SeededRandom.newSeed());
 		});
 
 		pausePlayButton.setOnAction(event -> {
@@ -211,19 +314,513 @@ public class ViewController {
 				timer.stop();
 				pausePlayButton.setText("PLAY");
 				stepButton.setDisable(false);
+				backButton.setDisable(false);
 			}
 			else {
+				perf.reset(); // the achieved rate shouldn't include the pause
 				timer.start();
 				pausePlayButton.setText("PAUSE");
 				stepButton.setDisable(true);
+				backButton.setDisable(true);
 			}
 
 			isPlaying = !isPlaying;
 		});
 
 		stepButton.setOnAction(event -> {
-			reactToStep(model.step(grid::setDisplayCell));
+			reactToStep(stepForward());
 		});
+
+		backButton.setOnAction(event -> {
+			if (player == null && history.generation() == history.oldest()) {
+				debugText.setText("No earlier steps recorded");
+				return;
+			}
+
+			long steps = 1;
+
+			if (player != null)
+				replaySeek(player.generation() - 1);
+			else {
+				long before = history.generation();
+				history.seek(before - 1, this::showCell);
+				steps = before - history.generation(); // more than 1 if advanced together
+				endRecordedGeneration();
+			}
+
+			flushGrid();
+			updateHistorySlider();
+
+			stepCount = (int) Math.max(stepCount - steps, 0);
+			restart = false;
+			debugText.setText("Step count: " + stepCount);
+			publishGeneration();
+		});
+
+		historySlider.valueProperty().subscribe(value -> {
+			if (syncingHistorySlider)
+				return;
+
+			if (isPlaying)
+				pausePlayButton.fire();
+
+			long target = Math.round(value.doubleValue());
+
+			if (player != null) {
+				replaySeek(target);
+				stepCount = (int) player.generation();
+			}
+			else {
+				long before = history.generation();
+				history.seek(target, this::showCell);
+				stepCount = (int) Math.max(stepCount + history.generation() - before, 0);
+				endRecordedGeneration();
+			}
+
+			flushGrid();
+			debugText.setText("Step count: " + stepCount);
+			publishGeneration();
+		});
+	}
+
+	/**
+	 * Fills the world with a soup determined by the given seed (and the density
+	 * control).
+	 */
+	private void randomize(long seed) {
+		model.reseed(seed);
+
+		var event = new LifeEvents.Randomize();
+		event.begin();
+		model.randomize(densityControl.getValue() / 100.0);
+		event.commit(model, (long) model.nrows() * model.ncols());
+
+		seedField.setText(Long.toString(seed));
+		stepCount = 0;
+		restart = false;
+		resetHistory();
+		grid.redraw();
+	}
+
+	/**
+	 * Advances the simulation by one step, recording the changes in the history.
+	 * If we've stepped back, the step is replayed from the history instead.
+	 *
+	 * @return 1 if the world changed, 0 otherwise
+	 */
+	private int stepForward() {
+		return advance(1, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Advances the simulation by up to the given number of steps, as in
+	 * {@link #stepForward()}, stopping early if the world stops changing or the
+	 * time budget runs out. With more than one step, only the net change is
+	 * drawn, at the end.
+	 *
+	 * @param budget nanoseconds to spend, although at least one step is taken
+	 * @return the number of steps that changed the world
+	 */
+	private int advance(int generations, long budget) {
+		long start = System.nanoTime();
+		perf.beginStep();
+		var batch = new GridEvents.DisplayBatch();
+		batch.begin();
+		long commands = grid.drawCommands();
+
+		if (generations > 1) {
+			if (frameChanges == null || frameChanges.nrows() != model.nrows()
+			    || frameChanges.ncols() != model.ncols())
+				frameChanges = new ChangeSet(model.nrows(), model.ncols());
+
+			coalescing = true;
+		}
+
+		int advanced = 0;
+
+		// If nothing needs the intermediate generations, let the model skip them (the
+		// history only needs the net change).
+		if (coalescing && player == null && recorder == null && !history.canRedo()) {
+			coalescing = false;
+			advanced = advanceUnobserved(generations, budget, start);
+		}
+		else {
+			// (ILife.advance starts it over itself, in whichever way suits the model.)
+			if (coalescing)
+				frameChanges.begin(model);
+
+			while (advanced < generations) {
+				int steps = (player != null) ? (replayStep() ? 1 : 0) : simulateStep();
+
+				if (steps == 0)
+					break;
+
+				advanced += steps;
+
+				if (System.nanoTime() - start >= budget)
+					break;
+			}
+		}
+
+		if (coalescing) {
+			coalescing = false;
+			forEachFrameChange(this::renderCell);
+		}
+
+		flushGrid();
+
+		batch.commit(grid, perf.changedCells(), perf.renderNanos(),
+		    grid.drawCommands() - commands);
+		perf.endStep(advanced);
+		updatePerfHud();
+		return advanced;
+	}
+
+	/**
+	 * Advances in chunks with {@link ILife#advance}, drawing the net change of
+	 * each (and storing it in the history as one delta), for when there's no
+	 * recording that needs every generation.
+	 */
+	private int advanceUnobserved(int generations, long budget, long start) {
+		int advanced = 0;
+
+		while (advanced < generations) {
+			int chunk = Math.min(generations - advanced, ADVANCE_CHUNK);
+
+			var event = new LifeEvents.Advance();
+			event.begin();
+			int done = model.advance(chunk, frameChanges);
+			event.commit(model, frameChanges.size());
+
+			forEachFrameChange((row, col, state) -> {
+				history.record(row, col, state);
+				perf.cellChanged();
+				renderCell(row, col, state);
+			});
+
+			if (done > 0)
+				history.commit(done);
+
+			advanced += done;
+
+			if (done < chunk || System.nanoTime() - start >= budget)
+				break;
+		}
+
+		updateHistorySlider();
+		return advanced;
+	}
+
+	/**
+	 * Visits the cells changed over the frame. A shaded model's cells can change
+	 * shade without changing state, so every cell it reported is visited.
+	 */
+	private void forEachFrameChange(ILife.Callback action) {
+		if (model instanceof Shaded)
+			frameChanges.forEachTouched(action);
+		else
+			frameChanges.forEach(action);
+	}
+
+	/**
+	 * @return the number of generations advanced: 1, more than 1 if they were
+	 *         replayed from the history together, or 0 if the world didn't change
+	 */
+	private int simulateStep() {
+		int steps;
+
+		if (history.canRedo())
+			steps = (int) history.seekNext(this::showCell);
+		else {
+			var event = new LifeEvents.Step();
+			event.begin();
+			long changedBefore = perf.changedCells();
+
+			boolean change = model.step((row, col, state) -> {
+				history.record(row, col, state);
+				showCell(row, col, state);
+			});
+			steps = change ? 1 : 0;
+
+			event.commit(model, perf.changedCells() - changedBefore);
+			history.commit();
+		}
+
+		endRecordedGeneration();
+		updateHistorySlider();
+		return steps;
+	}
+
+	/**
+	 * Displays a cell change from the model (and records it, if recording).
+	 */
+	private void showCell(int row, int col, CellState state) {
+		if (recorder != null)
+			recorder.invoke(row, col, state);
+
+		perf.cellChanged();
+		renderCell(row, col, state);
+	}
+
+	/**
+	 * Draws a changed cell, timing it for the performance overlay. In turbo mode,
+	 * the change is held until the end of the frame instead.
+	 */
+	private void renderCell(int row, int col, CellState state) {
+		if (coalescing) {
+			frameChanges.invoke(row, col, state);
+			return;
+		}
+
+		long start = System.nanoTime();
+		grid.setDisplayCell(row, col, state);
+		perf.rendered(System.nanoTime() - start);
+	}
+
+	/**
+	 * Draws any cell changes the grid has held back (see {@link Grid#flush}).
+	 */
+	private void flushGrid() {
+		long start = System.nanoTime();
+		grid.flush();
+		perf.rendered(System.nanoTime() - start);
+	}
+
+	private void updatePerfHud() {
+		long now = System.nanoTime();
+
+		if (!perfHud.isVisible() || now - lastPerfHudUpdate < PERF_HUD_INTERVAL)
+			return;
+
+		perfHud.setText(perfHudText());
+		lastPerfHudUpdate = now;
+	}
+
+	private String perfHudText() {
+		String text = perf.summary(targetRate());
+		long count = population;
+
+		return (count < 0) ? text : text + "%n%-10s %,8d".formatted("population", count);
+	}
+
+	/**
+	 * Starts or stops counting the population from the generation feed, for the
+	 * performance overlay.
+	 */
+	private void watchPopulation(boolean watch) {
+		if (!watch) {
+			if (populationWatcher != null)
+				populationWatcher.interrupt();
+
+			populationWatcher = null;
+			population = -1;
+			return;
+		}
+
+		populationWatcher = new Thread(() -> {
+			long seen = 0;
+
+			try {
+				while (!Thread.currentThread().isInterrupted()) {
+					try (var generation = generationFeed.awaitNext(seen, PERF_HUD_INTERVAL,
+					    TimeUnit.NANOSECONDS)) {
+						if (generation == null)
+							continue;
+
+						seen = generation.epoch();
+						population = generation.populationCount();
+					}
+				}
+			}
+			catch (InterruptedException e) {
+				// the overlay was hidden
+			}
+		}, "population-watcher");
+
+		populationWatcher.setDaemon(true);
+		populationWatcher.start();
+		generationFeed.publish(model, stepCount); // the world as it is now, to start with
+	}
+
+	/**
+	 * Hands the current state of the world to the generation feed, if anyone is
+	 * reading it.
+	 */
+	private void publishGeneration() {
+		if (generationFeed.isWatched())
+			generationFeed.publish(model, stepCount);
+	}
+
+	/**
+	 * Starts the history over from the current state of the world. This must be
+	 * called whenever the world is changed other than by stepping (or by
+	 * {@link #cellEdited editing a cell}).
+	 * <p>
+	 * This also ends any replay in progress, marks the change in any recording
+	 * in progress, and publishes the new state of the world to the generation
+	 * feed.
+	 */
+	void resetHistory() {
+		closePlayer();
+		history.reset(model);
+
+		// A recording can't change size midway.
+		if (recorder != null
+		    && (recorder.nrows() != model.nrows() || recorder.ncols() != model.ncols()))
+			stopRecording();
+
+		if (recorder != null) {
+			try {
+				recorder.keyframe(model);
+			}
+			catch (IOException e) {
+				recordingFailed(e);
+			}
+		}
+
+		updateHistorySlider();
+		publishGeneration();
+	}
+
+	/**
+	 * Records a cell changed by hand (e.g., by clicking on it) as a generation of
+	 * its own, in the history and any recording in progress, so that it can be
+	 * stepped back over like a step. Editing a replay ends it instead.
+	 */
+	void cellEdited(int row, int col, CellState state) {
+		if (player != null) {
+			resetHistory(); // ends the replay
+			return;
+		}
+
+		history.record(row, col, state);
+		history.commit();
+
+		if (recorder != null)
+			recorder.invoke(row, col, state);
+
+		endRecordedGeneration();
+		updateHistorySlider();
+		publishGeneration();
+	}
+
+	private void updateHistorySlider() {
+		syncingHistorySlider = true;
+
+		if (player != null) {
+			historySlider.setMin(0);
+			historySlider.setMax(player.lastGeneration());
+			historySlider.setValue(player.generation());
+			historySlider.setDisable(false);
+		}
+		else {
+			historySlider.setMin(history.oldest());
+			historySlider.setMax(history.newest());
+			historySlider.setValue(history.generation());
+			historySlider.setDisable(history.oldest() == history.newest());
+		}
+
+		syncingHistorySlider = false;
+	}
+
+	/**
+	 * Hands off the changes shown since the last call to the recorder, if any.
+	 */
+	private void endRecordedGeneration() {
+		if (recorder == null)
+			return;
+
+		try {
+			recorder.endGeneration();
+		}
+		catch (IOException e) {
+			recordingFailed(e);
+		}
+	}
+
+	private void recordingFailed(IOException e) {
+		e.printStackTrace();
+		recorder = null;
+		recordButton.setText("Record");
+		debugText.setText("Recording failed: " + e.getMessage());
+	}
+
+	private void stopRecording() {
+		if (recorder == null)
+			return;
+
+		try {
+			recorder.close();
+			debugText.setText("Recording saved");
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+			debugText.setText("Recording failed: " + e.getMessage());
+		}
+
+		recorder = null;
+		recordButton.setText("Record");
+	}
+
+	/**
+	 * Plays the next generation of the recording, instead of simulating it.
+	 */
+	private boolean replayStep() {
+		try {
+			boolean change = player.next(this::showReplayedCell);
+			updateHistorySlider();
+			return change;
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+			resetHistory(); // ends the replay
+			debugText.setText("Replay failed: " + e.getMessage());
+			return false;
+		}
+	}
+
+	private void replaySeek(long generation) {
+		try {
+			player.seek(generation, this::showReplayedCell);
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+			resetHistory(); // ends the replay
+			debugText.setText("Replay failed: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Displays a cell change from the recording, also updating the model so that
+	 * the world can be redrawn (or picked up from) at any point.
+	 */
+	private void showReplayedCell(int row, int col, CellState state) {
+		model.set(row, col, state);
+		perf.cellChanged();
+		renderCell(row, col, state);
+	}
+
+	private void closePlayer() {
+		if (player == null)
+			return;
+
+		try {
+			player.close();
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		}
+
+		player = null;
+		replayButton.setText("Replay");
+	}
+
+	/**
+	 * Finishes up anything in progress before the application exits.
+	 */
+	void shutdown() {
+		stopRecording();
+		closePlayer();
 	}
 
 	/**
@@ -231,15 +828,16 @@ public class ViewController {
 	 * step count and also halts the animation if it stalls (although it currently
 	 * does not detect loops/cycles.
 	 */
-	private void reactToStep(boolean change) {
+	private void reactToStep(int generations) {
 		if (restart) {
 			stepCount = 0;
 			restart = false;
 		}
 
-		if (change) {
-			stepCount++;
+		if (generations > 0) {
+			stepCount += generations;
 			debugText.setText("Step count: " + stepCount);
+			publishGeneration();
 		}
 		else {
 			// Stop animating if the simulation stalls (reaches a fixed point).
@@ -272,18 +870,103 @@ public class ViewController {
 		centerPane.setVvalue(0.5);
 	}
 
+	/**
+	 * Releases anything the model holds outside this process (e.g., the workers
+	 * of a {@link model.PartitionedLife}) before it's replaced.
+	 */
+	private void closeModel() {
+		if (model instanceof AutoCloseable closeable) {
+			try {
+				closeable.close();
+			}
+			catch (Exception e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Switches to a model of the given class, carrying the world over (see
+	 * {@link WorldTransfer}). A model of that class that was switched away from
+	 * earlier is reused if it's still the right size, so there's nothing to
+	 * rebuild, and the grid is only redrawn if the world had to be converted.
+	 */
+	private void switchModel(Class<? extends ILife> modelClass) throws ReflectiveOperationException {
+		var previous = model;
+		var idle = idleModels.remove(modelClass);
+		var next = (idle != null) ? idle.get() : null;
+
+		if (next == null)
+			next = modelClass.getConstructor().newInstance();
+		else
+			next.clear(); // forget anything left over from its last run (e.g., zombies' targets)
+
+		boolean converted;
+
+		try {
+			if (next.nrows() != previous.nrows() || next.ncols() != previous.ncols()) {
+				var event = new LifeEvents.Resize();
+				event.begin();
+				next.resize(previous.nrows(), previous.ncols());
+				event.commit(next, (long) next.nrows() * next.ncols());
+			}
+
+			converted = WorldTransfer.copy(previous, next);
+		}
+		catch (RuntimeException e) {
+			// Don't leave anything it started running (e.g., workers).
+			if (next instanceof AutoCloseable closeable) {
+				try {
+					closeable.close();
+				}
+				catch (Exception suppressed) {
+					e.addSuppressed(suppressed);
+				}
+			}
+
+			throw e;
+		}
+		next.reseed(previous.seed()); // it's still that seed's soup
+
+		// Closeable models hold on to more than memory, so they aren't kept.
+		if (previous instanceof AutoCloseable)
+			closeModel();
+		else
+			idleModels.put(previous.getClass(), new SoftReference<>(previous));
+
+		model = next;
+		resetHistory();
+
+		if (converted || previous instanceof Shaded || next instanceof Shaded)
+			grid.redraw();
+	}
+
 	void resizeModel() {
+		// They'd need resizing (i.e., rebuilding) anyway.
+		if (grid.nrows() != model.nrows() || grid.ncols() != model.ncols())
+			idleModels.clear();
+
+		var event = new LifeEvents.Resize();
+		event.begin();
 		model.resize(grid.nrows(), grid.ncols());
+		event.commit(model, (long) model.nrows() * model.ncols());
+
 		resetAnimation();
+		resetHistory();
 		grid.redraw();
 	}
 
 	private void initSidebar() {
 		initGridSizeControls();
+		initSeedControls();
 		initTpsControls();
+		initHistoryControls();
 		initModelSelectorBox();
 		initColorMenu();
 		initLiveStyleEditor();
+		initSnapshotControls();
+		initPatternControls();
+		initRecordingControls();
 
 		sidebarToggle.setTooltip(newTooltip("Toggle sidebar (T or Ctrl+T)"));
 
@@ -293,6 +976,30 @@ public class ViewController {
 		});
 	}
 
+	private void initHistoryControls() {
+		historyControl.subscribe(megabytes -> {
+			history.setBudget((long) megabytes << 20);
+		});
+
+		history.setBudget((long) historyControl.getValue() << 20);
+	}
+
+	private void initSeedControls() {
+		// Entering a seed recreates its soup, e.g., to compare models on the same one.
+		seedField.setOnAction(e -> {
+			try {
+				randomize(Long.parseLong(seedField.getText().strip()));
+			}
+			catch (NumberFormatException ex) {
+				debugText.setText("Invalid seed: " + seedField.getText());
+				seedField.setText(Long.toString(model.seed()));
+			}
+		});
+
+		seedField.setText(Long.toString(model.seed()));
+		seedField.setTooltip(newTooltip("Seed of the last soup; enter one to recreate its soup"));
+	}
+
 	private void initTpsControls() {
 		tpsControl.subscribe(newValue -> {
 			ticksPerSecond = newValue;
@@ -300,6 +1007,27 @@ public class ViewController {
 
 		// See FXML for initial value.
 		ticksPerSecond = tpsControl.spinner.getValue();
+
+		// Turbo mode runs as many steps as fit in each frame (up to the limit),
+		// regardless of the tick rate.
+		turboControl.subscribe(newValue -> {
+			generationsPerFrame = newValue;
+		});
+
+		turboCheckBox.selectedProperty().subscribe(selected -> {
+			turbo = selected;
+			tpsControl.setDisable(selected);
+			turboControl.setDisable(!selected);
+			perf.reset();
+		});
+
+		generationsPerFrame = turboControl.getValue();
+		turboCheckBox.setTooltip(newTooltip("Run several steps per frame, drawing only the result (Shift+T)"));
+	}
+
+	/** @return the number of steps per second we're aiming for */
+	private int targetRate() {
+		return turbo ? generationsPerFrame * 60 : ticksPerSecond;
 	}
 
 	private void initGridSizeControls() {
@@ -352,6 +1080,11 @@ public class ViewController {
 		table.put("VampireLife", model.VampireLife.class);
 		table.put("ZombieLife", model.ZombieLife.class);
 		table.put("AmoebaLife", model.AmoebaLife.class);
+		table.put("GenerationsLife", model.GenerationsLife.class);
+		table.put("LargerThanLife", model.LargerThanLife.class);
+		table.put("LeniaLife", model.LeniaLife.class);
+		table.put("NetworkLife", model.NetworkLife.class);
+		table.put("PartitionedLife", model.PartitionedLife.class);
 
 		var items = modelCBox.getItems();
 
@@ -374,19 +1107,18 @@ public class ViewController {
 			}
 
 			try {
-				model = selectedClass.getConstructor().newInstance();
+				switchModel(selectedClass);
 
 				var desc = model.description();
 
 				if (desc != null)
 					modelInfo.setText(desc);
 
+				seedField.setText(Long.toString(model.seed()));
 			}
 			catch (Exception e) {
 				e.printStackTrace();
 			}
-
-			resizeModel();
 		});
 
 		// Should bind width to (sidebar width - insets), but this will do for now.
@@ -397,19 +1129,16 @@ public class ViewController {
 	private void initColorMenu() {
 		assert grid != null : "must call initCanvasAndGrid() first";
 
-		if (grid.primaryColor == null)
-			colorPicker.setValue(Color.BLACK);
-		else
-			colorPicker.setValue(grid.primaryColor);
+		colorPicker.setValue(grid.palette.primary());
 
 		// update canvas color on color selection
 		colorPicker.setOnAction(e -> {
 			var color = colorPicker.getValue();
 
-			if (grid.primaryColor.equals(color))
+			if (grid.palette.primary().equals(color))
 				return; // avoid unnecessary redraw
 
-			grid.primaryColor = color;
+			grid.palette.setPrimary(color);
 			grid.redraw();
 		});
 
@@ -432,6 +1161,247 @@ public class ViewController {
 		styleEditorButton.setTooltip(newTooltip(styleEditorButton.getText()));
 	}
 
+	private void initSnapshotControls() {
+		var chooser = new FileChooser();
+		chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Life snapshots", "*.life"));
+
+		saveButton.setOnAction(e -> {
+			File file = chooser.showSaveDialog(root.getScene().getWindow());
+
+			if (file == null)
+				return; // cancelled
+
+			try {
+				SnapshotFile.save(model, file.toPath());
+				debugText.setText("Saved " + file.getName());
+			}
+			catch (IOException ex) {
+				ex.printStackTrace();
+				debugText.setText("Unable to save " + file.getName());
+			}
+		});
+
+		loadButton.setOnAction(e -> {
+			File file = chooser.showOpenDialog(root.getScene().getWindow());
+
+			if (file != null)
+				loadSnapshot(file);
+		});
+
+		saveButton.setTooltip(newTooltip("Save snapshot (Ctrl+S)"));
+		loadButton.setTooltip(newTooltip("Load snapshot (Ctrl+L)"));
+	}
+
+	/**
+	 * Restores a saved world, switching to the saved model and dimensions first.
+	 */
+	private void loadSnapshot(File file) {
+		SnapshotFile snapshot;
+
+		try {
+			snapshot = SnapshotFile.load(file.toPath());
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+			debugText.setText("Unable to load " + file.getName());
+			return;
+		}
+
+		resetAnimation();
+
+		if (!switchWorld(snapshot.modelClass(), snapshot.nrows(), snapshot.ncols()))
+			return;
+
+		snapshot.restore(model);
+		resetHistory();
+		grid.redraw();
+		debugText.setText("Loaded " + file.getName());
+	}
+
+	/**
+	 * Switches to the given model (if it's one of the selectable ones) and world
+	 * dimensions, by way of the sidebar controls. This clears the world if either
+	 * one actually changes.
+	 *
+	 * @return {@code false} if the dimensions are out of the controls' range
+	 */
+	private boolean switchWorld(String className, int nrows, int ncols) {
+		String simpleName = className.substring(className.lastIndexOf('.') + 1);
+
+		if (modelCBox.getItems().contains(simpleName))
+			modelCBox.setValue(simpleName);
+
+		nrowsControl.setValue(nrows);
+		ncolsControl.setValue(ncols);
+
+		if (model.nrows() != nrows || model.ncols() != ncols) {
+			debugText.setText("World is too large (%dx%d)".formatted(nrows, ncols));
+			return false;
+		}
+
+		return true;
+	}
+
+	private void initRecordingControls() {
+		var chooser = new FileChooser();
+		chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Life recordings", "*.lrun"));
+
+		recordButton.setOnAction(e -> {
+			if (recorder != null) {
+				stopRecording();
+				return;
+			}
+
+			File file = chooser.showSaveDialog(root.getScene().getWindow());
+
+			if (file == null)
+				return; // cancelled
+
+			closePlayer();
+
+			try {
+				recorder = new RunRecorder(model, file.toPath(), RECORDING_KEYFRAME_INTERVAL);
+				recordButton.setText("Stop");
+				debugText.setText("Recording to " + file.getName());
+			}
+			catch (IOException ex) {
+				ex.printStackTrace();
+				debugText.setText("Unable to record to " + file.getName());
+			}
+		});
+
+		replayButton.setOnAction(e -> {
+			if (player != null) {
+				resetHistory(); // ends the replay
+				debugText.setText("Replay stopped");
+				return;
+			}
+
+			File file = chooser.showOpenDialog(root.getScene().getWindow());
+
+			if (file != null)
+				startReplay(file);
+		});
+
+		recordButton.setTooltip(newTooltip("Record every step to a file"));
+		replayButton.setTooltip(newTooltip("Play back a recording (play, step, back and scrub as usual)"));
+	}
+
+	private void startReplay(File file) {
+		RunPlayer opened;
+
+		try {
+			opened = RunPlayer.open(file.toPath());
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+			debugText.setText("Unable to replay " + file.getName());
+			return;
+		}
+
+		stopRecording();
+		resetAnimation();
+
+		if (!switchWorld(opened.modelClass(), opened.nrows(), opened.ncols())) {
+			try {
+				opened.close();
+			}
+			catch (IOException e) {
+				e.printStackTrace();
+			}
+			return;
+		}
+
+		// The player starts from a blank world.
+		model.clear();
+		resetHistory();
+		grid.redraw();
+
+		player = opened;
+		replayButton.setText("Stop");
+		replayStep(); // shows the first generation
+		debugText.setText("Replaying " + file.getName());
+	}
+
+	private void initPatternControls() {
+		var chooser = new FileChooser();
+		chooser.getExtensionFilters().addAll(
+		    new FileChooser.ExtensionFilter("Patterns", "*.rle", "*.cells", "*.lif"),
+		    new FileChooser.ExtensionFilter("Networks", "*.edges", "*.el", "*.txt"),
+		    new FileChooser.ExtensionFilter("All files", "*.*"));
+
+		importButton.setOnAction(e -> {
+			File file = chooser.showOpenDialog(root.getScene().getWindow());
+
+			if (file == null)
+				return; // cancelled
+
+			String name = file.getName();
+
+			if (name.endsWith(".edges") || name.endsWith(".el") || name.endsWith(".txt")) {
+				loadNetwork(file);
+				return;
+			}
+
+			try (var in = FileChannel.open(file.toPath())) {
+				pastePattern(in, file.getName());
+			}
+			catch (IOException ex) {
+				ex.printStackTrace();
+				debugText.setText("Unable to read " + file.getName());
+			}
+		});
+
+		importButton.setTooltip(newTooltip("Import pattern at mouse (Ctrl+I), or paste (Ctrl+V)"));
+	}
+
+	/**
+	 * Pastes an RLE, plaintext or Life 1.06 pattern with its top-left corner at
+	 * the cell under the mouse.
+	 */
+	private void pastePattern(ReadableByteChannel in, String source) {
+		int row = Math.floorMod(hoverRow, grid.nrows());
+		int col = Math.floorMod(hoverCol, grid.ncols());
+
+		try {
+			var pattern = PatternReader.paste(in, model, row, col);
+			resetHistory();
+			grid.redraw();
+			debugText.setText("Pasted %dx%d pattern (%d cells) from %s".formatted(pattern.height(),
+			    pattern.width(), pattern.population(), source));
+		}
+		catch (IOException e) {
+			debugText.setText("Unable to paste from " + source + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Switches to a {@link NetworkLife} on the network in the given edge list (or
+	 * algs4 graph file), laid out by the coordinates in the {@code .xy} file of
+	 * the same name, if there is one.
+	 */
+	private void loadNetwork(File file) {
+		try {
+			var network = NetworkReader.read(file.toPath());
+			var coordinates = Path.of(file.getPath().replaceFirst("\\.[^.]*$", ".xy"));
+
+			if (Files.exists(coordinates))
+				network = NetworkReader.readCoordinates(coordinates, network);
+
+			closeModel();
+			model = new NetworkLife(network);
+			modelCBox.setValue("NetworkLife");
+			modelInfo.setText(model.description());
+			seedField.setText(Long.toString(model.seed()));
+			resizeModel();
+			debugText.setText("Loaded %,d vertices and %,d edges from %s"
+			    .formatted(network.vertices(), network.edges(), file.getName()));
+		}
+		catch (IOException e) {
+			debugText.setText("Unable to load network from " + file.getName() + ": " + e.getMessage());
+		}
+	}
+
 	private Tooltip newTooltip(String text) {
 		var tip = new Tooltip(text);
 		tip.setShowDelay(javafx.util.Duration.millis(200));
@@ -443,8 +1413,8 @@ public class ViewController {
 
 		acc.put(keyCombination("Shortcut+P"), pausePlayButton::requestFocus);
 		acc.put(keyCombination("P"), pausePlayButton::fire);
-		// acc.put(keyCombination("Shift+Comma"), backButton::fire); // '<'
-		// acc.put(keyCombination("B"), backButton::fire);
+		acc.put(keyCombination("Shift+Comma"), backButton::fire); // '<'
+		acc.put(keyCombination("B"), backButton::fire);
 		acc.put(keyCombination("Shift+Period"), stepButton::fire); // '>'
 		acc.put(keyCombination("F"), stepButton::fire);
 		acc.put(keyCombination("Shift+C"), clearButton::fire);
@@ -458,6 +1428,8 @@ public class ViewController {
 			tpsControl.setValue(ticksPerSecond - 1);
 		});
 
+		acc.put(keyCombination("Shift+T"), turboCheckBox::fire);
+
 		acc.put(keyCombination("Ignore Shortcut+Equals"), () -> {
 			cellSizeControl.spinner.increment();
 		});
@@ -476,9 +1448,25 @@ public class ViewController {
 			sidebar.setVisible(!sidebar.isVisible());
 		});
 
+		acc.put(keyCombination("Shortcut+S"), saveButton::fire);
+		acc.put(keyCombination("Shortcut+L"), loadButton::fire);
+
+		acc.put(keyCombination("Shortcut+I"), importButton::fire);
+		acc.put(keyCombination("Shortcut+V"), () -> {
+			String text = Clipboard.getSystemClipboard().getString();
+
+			if (text != null) {
+				var bytes = new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+				pastePattern(Channels.newChannel(bytes), "clipboard");
+			}
+		});
+
 		acc.put(keyCombination("Shortcut+D"), () -> {
 			debugText.setManaged(!debugText.isManaged());
 			debugText.setVisible(!debugText.isVisible());
+			perfHud.setVisible(debugText.isVisible());
+			watchPopulation(perfHud.isVisible());
+			perfHud.setText(perfHudText());
 		});
 	}
 }
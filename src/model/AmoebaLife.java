@@ -1,7 +1,10 @@
 package model;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
 
 import edu.princeton.cs.algs4.BreadthFirstPaths;
 import edu.princeton.cs.algs4.Graph;
@@ -20,6 +23,7 @@ public class AmoebaLife implements ILife {
 	private int[][] amoebaInfo; // row-col indexed
 	private int nrows;
 	private int ncols;
+	private final SeededRandom random = new SeededRandom();
 	private Queue<Cell> queue = new Queue<>(); // Stores cell updates
 	private ArrayList<Integer> alreadyMoved; // Stores already moved cells
 	private static final int GROWTH_STAGE_1 = 10; // 5 wide stage
@@ -44,6 +48,26 @@ public class AmoebaLife implements ILife {
 			initializeNeighbors(current);
 	}
 
+	@Override
+	public int nrows() {
+		return nrows;
+	}
+
+	@Override
+	public int ncols() {
+		return ncols;
+	}
+
+	@Override
+	public long seed() {
+		return random.seed();
+	}
+
+	@Override
+	public void reseed(long seed) {
+		random.reseed(seed);
+	}
+
 	/**
 	 * Returns index of cell based on row and col
 	 *
@@ -127,12 +151,12 @@ public class AmoebaLife implements ILife {
 
 		// 3 Nuclei
 		for (int i = 0; i < 3; i++) {
-			int randomInt = RANDOM.nextInt(nrows * ncols);
+			int randomInt = random.nextInt(nrows * ncols);
 			cells[randomInt] = NUCLEUS;
 			setGrowthStage(convertToRow(randomInt), convertToCol(randomInt));
 		}
 		// 1 Food
-		cells[RANDOM.nextInt(nrows * ncols)] = FOOD;
+		cells[random.nextInt(nrows * ncols)] = FOOD;
 	}
 
 	/**
@@ -220,6 +244,11 @@ public class AmoebaLife implements ILife {
 		}
 	}
 
+	@Override
+	public Set<CellState> states() {
+		return EnumSet.of(CellState.DEAD, CellState.GREEN, CellState.RED, CellState.BLUE);
+	}
+
 	@Override
 	public CellState get(int row, int col) {
 		return cells[convertToIndex(row, col)];
@@ -230,6 +259,35 @@ public class AmoebaLife implements ILife {
 		cells[convertToIndex(row, col)] = state;
 	}
 
+	@Override
+	public void getRegion(int row, int col, int height, int width, byte[] dest) {
+		Regions.get(cells, ncols, row, col, height, width, dest);
+	}
+
+	@Override
+	public void setRegion(int row, int col, int height, int width, byte[] src) {
+		Regions.set(cells, ncols, row, col, height, width, src);
+	}
+
+	@Override
+	public int extrasSize() {
+		return amoebaInfo.length * 2 * Integer.BYTES;
+	}
+
+	@Override
+	public void saveExtras(ByteBuffer dest) {
+		for (int[] info : amoebaInfo)
+			dest.putInt(info[0]).putInt(info[1]); // Growth count, hunger
+	}
+
+	@Override
+	public void loadExtras(ByteBuffer src) {
+		for (int[] info : amoebaInfo) {
+			info[0] = src.getInt();
+			info[1] = src.getInt();
+		}
+	}
+
 	@Override
 	public boolean step(Callback action) {
 		ArrayList<Integer> foodIndexes = new ArrayList<>();
@@ -256,13 +314,13 @@ public class AmoebaLife implements ILife {
 				// If cell food, stay food and float around.
 				if (cells[current] == FOOD) {
 					// Chance to float around.
-					if (RANDOM.nextInt(4) == 0) {
+					if (random.nextInt(4) == 0) {
 						// Get all possible positions
 						ArrayList<Integer> availablePositions = getPossiblePositions(current);
 
 						// Pick a random position for next position.
 						int nextPosition = availablePositions
-						    .get(RANDOM.nextInt(availablePositions.size()));
+						    .get(random.nextInt(availablePositions.size()));
 
 						queue.enqueue(
 						    new Cell(convertToRow(nextPosition), convertToCol(nextPosition), FOOD));
@@ -285,7 +343,7 @@ public class AmoebaLife implements ILife {
 									alone = false;
 
 							// Chance of becoming food.
-							if (RANDOM.nextInt(ncols * nrows * 6) == 0 && alone)
+							if (random.nextInt(ncols * nrows * 6) == 0 && alone)
 								queue.enqueue(new Cell(row, col, FOOD));
 						}
 						else
@@ -314,7 +372,7 @@ public class AmoebaLife implements ILife {
 
 							// Pick a random position for next position.
 							int twinPosition = availablePositions
-							    .get(RANDOM.nextInt(availablePositions.size()));
+							    .get(random.nextInt(availablePositions.size()));
 
 							// Keep original cell with the default growth stage and hunger.
 							queue.enqueue(new Cell(row, col, NUCLEUS));
@@ -392,7 +450,7 @@ public class AmoebaLife implements ILife {
 
 							// Pick a random position for next position.
 							int randomPosition = availablePositions
-							    .get(RANDOM.nextInt(availablePositions.size()));
+							    .get(random.nextInt(availablePositions.size()));
 							move(current, randomPosition);
 						}
 
@@ -403,6 +461,10 @@ public class AmoebaLife implements ILife {
 			}
 		}
 
+		var apply = new LifeEvents.Apply();
+		apply.begin();
+		int updates = queue.size();
+
 		// Make needed updates (done afterwards to prevent invalid updates)
 		Arrays.fill(cells, CellState.DEAD);
 		while (!queue.isEmpty()) {
@@ -416,6 +478,8 @@ public class AmoebaLife implements ILife {
 		for (int current = 0; current < cells.length; current++)
 			action.invoke(convertToRow(current), convertToCol(current), cells[current]);
 
+		apply.commit(this, updates);
+
 		return populationCount() > 0; // Game designed to go on as long as Amoeba still alive.
 	}
 
@@ -0,0 +1,175 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Coalesces the changes of several generations into the net change from where
+ * it {@link #begin began}, e.g., so that only the final state of a batch of
+ * generations needs to be drawn.
+ * <p>
+ * Pass this as the callback to {@link ILife#step} (any number of times), then
+ * use {@link #forEach} to visit each cell that ended up different from how it
+ * started. A cell that changes and then changes back is left out. (For models
+ * whose cells have more to them than their state, e.g., {@link Shaded} ones,
+ * {@link #forEachTouched} visits every cell that changed at all.)
+ * <p>
+ * {@link #begin(ILife)} copies the starting states from the model, so this
+ * doesn't depend on whether a model invokes its callback before or after
+ * applying a change, but that copy costs as much as a pass over the whole
+ * world. Models that know what each changed cell was beforehand (e.g., ones
+ * that only keep their live cells) can skip it with {@link #begin()} and
+ * report their changes through {@link #record} instead. Beyond that, the cost
+ * is proportional to the number of changes.
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+public final class ChangeSet implements ILife.Callback {
+	private static final byte UNTOUCHED = -1;
+
+	private final int nrows;
+	private final int ncols;
+
+	private final byte[] baseline; // state of each cell (ordinal) as of begin()
+	private final byte[] latest;   // latest state of each cell, or UNTOUCHED
+	private boolean copied = true; // whether baseline holds every cell, or just the touched ones
+
+	// indices of touched cells, in order of first change
+	private int[] touched = new int[64];
+	private int size;
+
+	public ChangeSet(int nrows, int ncols) {
+		this.nrows = nrows;
+		this.ncols = ncols;
+		this.baseline = new byte[Math.multiplyExact(nrows, ncols)];
+		this.latest = new byte[baseline.length];
+		Arrays.fill(latest, UNTOUCHED);
+	}
+
+	public int nrows() {
+		return nrows;
+	}
+
+	public int ncols() {
+		return ncols;
+	}
+
+	/**
+	 * Forgets any changes and starts over from the current state of the model,
+	 * which must have the same dimensions. This copies every cell of the model.
+	 */
+	public void begin(ILife model) {
+		if (model.nrows() != nrows || model.ncols() != ncols)
+			throw new IllegalArgumentException("Model is %dx%d, not %dx%d"
+			    .formatted(model.nrows(), model.ncols(), nrows, ncols));
+
+		forget();
+		model.getRegion(0, 0, nrows, ncols, baseline);
+		copied = true;
+	}
+
+	/**
+	 * Forgets any changes and starts over without reading the model, so every
+	 * change until the next {@code begin} must be reported through
+	 * {@link #record}, with the state the cell had beforehand.
+	 */
+	public void begin() {
+		forget();
+		copied = false;
+	}
+
+	private void forget() {
+		for (int i = 0; i < size; i++)
+			latest[touched[i]] = UNTOUCHED;
+
+		size = 0;
+	}
+
+	/**
+	 * Records a change. Only allowed after {@link #begin(ILife)}, which knows
+	 * what every cell started as.
+	 */
+	@Override
+	public void invoke(int row, int col, CellState state) {
+		int index = row * ncols + col;
+
+		if (latest[index] == UNTOUCHED) {
+			if (!copied)
+				throw new IllegalStateException("No starting state for (%d, %d)".formatted(row, col));
+
+			touch(index);
+		}
+
+		latest[index] = (byte) state.ordinal();
+	}
+
+	/**
+	 * Records a change, given the state the cell had just before it.
+	 */
+	public void record(int row, int col, CellState previous, CellState state) {
+		int index = row * ncols + col;
+
+		if (latest[index] == UNTOUCHED) {
+			if (!copied)
+				baseline[index] = (byte) previous.ordinal();
+
+			touch(index);
+		}
+
+		latest[index] = (byte) state.ordinal();
+	}
+
+	private void touch(int index) {
+		if (size == touched.length)
+			touched = Arrays.copyOf(touched, 2 * size);
+
+		touched[size++] = index;
+	}
+
+	/**
+	 * @return whether any cell differs from how it started
+	 */
+	public boolean isEmpty() {
+		for (int i = 0; i < size; i++)
+			if (latest[touched[i]] != baseline[touched[i]])
+				return false;
+
+		return true;
+	}
+
+	/**
+	 * @return the number of cells that differ from how they started
+	 */
+	public int size() {
+		int count = 0;
+
+		for (int i = 0; i < size; i++)
+			if (latest[touched[i]] != baseline[touched[i]])
+				count++;
+
+		return count;
+	}
+
+	/**
+	 * Visits each cell that differs from how it started, with its latest state.
+	 */
+	public void forEach(ILife.Callback action) {
+		for (int i = 0; i < size; i++) {
+			int index = touched[i];
+
+			if (latest[index] != baseline[index])
+				action.invoke(index / ncols, index % ncols, Regions.STATES[latest[index]]);
+		}
+	}
+
+	/**
+	 * Visits each cell that changed since {@link #begin}, with its latest state,
+	 * even if that's the state it started in.
+	 */
+	public void forEachTouched(ILife.Callback action) {
+		for (int i = 0; i < size; i++) {
+			int index = touched[i];
+			action.invoke(index / ncols, index % ncols, Regions.STATES[latest[index]]);
+		}
+	}
+}
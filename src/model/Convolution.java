@@ -0,0 +1,208 @@
+package model;
+
+import java.util.stream.IntStream;
+
+/**
+ * Circular (i.e., wrapping around) convolution of a real plane with a fixed
+ * kernel of the same size, by way of 2D Fourier transforms (see {@link Fft}).
+ * This costs O(N log N) for N cells, however large the kernel.
+ * <p>
+ * Since the planes are real, only half of each row's spectrum is kept (the
+ * rest is its mirror image), and rows are transformed in pairs, as the real and
+ * imaginary parts of one complex row. The rows (then the columns, then the rows
+ * again) are split into bands, which are transformed in parallel for large
+ * planes.
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+final class Convolution {
+	/** Smaller planes aren't worth farming out to other threads */
+	private static final long PARALLEL_THRESHOLD = 1 << 16;
+
+	/** Rows or columns per band, roughly */
+	private static final int BAND_SIZE = 16;
+
+	private final int nrows;
+	private final int ncols;
+	private final int half; // columns of the spectrum kept
+	private final Fft rowFft;
+	private final Fft colFft;
+
+	// Spectrum of the plane being convolved, row-major with half columns
+	private final double[] re;
+	private final double[] im;
+
+	// Spectrum of the kernel, divided by the number of cells (so the inverse
+	// transform comes out scaled already)
+	private final double[] kernelRe;
+	private final double[] kernelIm;
+
+	/**
+	 * @param kernel row-major, with the kernel's center at (0, 0) (so offsets up
+	 *               and to the left wrap around to the bottom and right)
+	 */
+	Convolution(int nrows, int ncols, float[] kernel) {
+		this.nrows = nrows;
+		this.ncols = ncols;
+		this.half = ncols / 2 + 1;
+		this.rowFft = new Fft(ncols);
+		this.colFft = new Fft(nrows);
+		this.re = new double[Math.multiplyExact(nrows, half)];
+		this.im = new double[re.length];
+
+		forwardRows(kernel);
+		columns(false);
+
+		double scale = 1.0 / ((double) nrows * ncols);
+		kernelRe = new double[re.length];
+		kernelIm = new double[re.length];
+
+		for (int i = 0; i < re.length; i++) {
+			kernelRe[i] = re[i] * scale;
+			kernelIm[i] = im[i] * scale;
+		}
+	}
+
+	/**
+	 * Convolves the plane with the kernel.
+	 *
+	 * @param src  row-major
+	 * @param dest row-major (may be the same as {@code src})
+	 */
+	void apply(float[] src, float[] dest) {
+		forwardRows(src);
+		columns(true);
+		inverseRows(dest);
+	}
+
+	/**
+	 * Runs the task for each band of the given number of rows or columns.
+	 */
+	private void inBands(int count, BandTask task) {
+		int bands = Math.ceilDiv(count, BAND_SIZE);
+		var stream = IntStream.range(0, bands);
+
+		if ((long) nrows * ncols >= PARALLEL_THRESHOLD)
+			stream = stream.parallel();
+
+		stream.forEach(band -> task.run(band * BAND_SIZE, Math.min(count, (band + 1) * BAND_SIZE)));
+	}
+
+	@FunctionalInterface
+	private interface BandTask {
+		void run(int from, int to);
+	}
+
+	/**
+	 * Transforms each row of the plane into its half of the spectrum.
+	 */
+	private void forwardRows(float[] src) {
+		inBands(Math.ceilDiv(nrows, 2), (from, to) -> {
+			var wr = new double[ncols];
+			var wi = new double[ncols];
+
+			for (int pair = from; pair < to; pair++) {
+				int a = 2 * pair;
+				int b = a + 1;
+
+				for (int j = 0; j < ncols; j++) {
+					wr[j] = src[a * ncols + j];
+					wi[j] = (b < nrows) ? src[b * ncols + j] : 0;
+				}
+
+				rowFft.forward(wr, wi);
+
+				// Separate the two rows' spectra by symmetry: the transform of a real row
+				// is the conjugate of itself, mirrored.
+				for (int k = 0; k < half; k++) {
+					int mirror = (k == 0) ? 0 : ncols - k;
+
+					re[a * half + k] = (wr[k] + wr[mirror]) / 2;
+					im[a * half + k] = (wi[k] - wi[mirror]) / 2;
+
+					if (b < nrows) {
+						re[b * half + k] = (wi[k] + wi[mirror]) / 2;
+						im[b * half + k] = (wr[mirror] - wr[k]) / 2;
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Transforms each column of the spectrum, and optionally multiplies by the
+	 * kernel's spectrum and transforms back.
+	 */
+	private void columns(boolean convolve) {
+		inBands(half, (from, to) -> {
+			var cr = new double[nrows];
+			var ci = new double[nrows];
+
+			for (int k = from; k < to; k++) {
+				for (int i = 0; i < nrows; i++) {
+					cr[i] = re[i * half + k];
+					ci[i] = im[i * half + k];
+				}
+
+				colFft.forward(cr, ci);
+
+				if (convolve) {
+					for (int i = 0; i < nrows; i++) {
+						double kr = kernelRe[i * half + k];
+						double ki = kernelIm[i * half + k];
+						double r = cr[i] * kr - ci[i] * ki;
+						ci[i] = cr[i] * ki + ci[i] * kr;
+						cr[i] = r;
+					}
+
+					colFft.inverse(cr, ci);
+				}
+
+				for (int i = 0; i < nrows; i++) {
+					re[i * half + k] = cr[i];
+					im[i * half + k] = ci[i];
+				}
+			}
+		});
+	}
+
+	/**
+	 * Transforms each row's half spectrum back into a real row.
+	 */
+	private void inverseRows(float[] dest) {
+		inBands(Math.ceilDiv(nrows, 2), (from, to) -> {
+			var wr = new double[ncols];
+			var wi = new double[ncols];
+
+			for (int pair = from; pair < to; pair++) {
+				int a = 2 * pair;
+				int b = a + 1;
+
+				// Put the pair back together as one complex row (a + ib), filling in the
+				// other half of each spectrum from its mirror image.
+				for (int k = 0; k < ncols; k++) {
+					int j = (k < half) ? k : ncols - k;
+					double sign = (k < half) ? 1 : -1;
+
+					double ar = re[a * half + j];
+					double ai = sign * im[a * half + j];
+					double br = (b < nrows) ? re[b * half + j] : 0;
+					double bi = (b < nrows) ? sign * im[b * half + j] : 0;
+
+					wr[k] = ar - bi;
+					wi[k] = ai + br;
+				}
+
+				rowFft.inverse(wr, wi);
+
+				for (int j = 0; j < ncols; j++) {
+					dest[a * ncols + j] = (float) wr[j];
+
+					if (b < nrows)
+						dest[b * ncols + j] = (float) wi[j];
+				}
+			}
+		});
+	}
+}
@@ -0,0 +1,182 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * A fast Fourier transform of complex sequences of one length, given as
+ * separate arrays of real and imaginary parts.
+ * <p>
+ * Powers of 2 are transformed directly (iterative radix 2). Any other length
+ * {@code n} goes through Bluestein's algorithm, which turns it into a
+ * convolution of power-of-2 length at least {@code 2n - 1}. Either way, the
+ * cost is O(n log n), and the tables are computed once, up front.
+ * <p>
+ * Instances can be shared between threads (each thread gets its own scratch
+ * space for Bluestein's algorithm).
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+final class Fft {
+	private final int n;
+	private final int m; // length of the radix-2 transforms (n, or Bluestein's padded length)
+
+	// Radix-2 tables for length m
+	private final int[] reverse;  // bit-reversed indices
+	private final double[] cos;   // cos(2 pi k / m), for k < m / 2
+	private final double[] sin;   // -sin(2 pi k / m)
+
+	// Bluestein's algorithm: the chirp exp(-i pi k^2 / n), and the transform of
+	// its conjugate, wrapped around to length m
+	private final double[] chirpRe;
+	private final double[] chirpIm;
+	private final double[] filterRe;
+	private final double[] filterIm;
+	private final ThreadLocal<double[][]> scratch;
+
+	Fft(int n) {
+		this.n = n;
+		this.m = (Integer.bitCount(n) == 1) ? n : Integer.highestOneBit(2 * n - 1) << 1;
+
+		int bits = Integer.numberOfTrailingZeros(m);
+		reverse = new int[m];
+		for (int i = 0; i < m; i++)
+			reverse[i] = (bits == 0) ? 0 : Integer.reverse(i) >>> (32 - bits);
+
+		cos = new double[m / 2];
+		sin = new double[m / 2];
+		for (int k = 0; k < m / 2; k++) {
+			cos[k] = Math.cos(2 * Math.PI * k / m);
+			sin[k] = -Math.sin(2 * Math.PI * k / m);
+		}
+
+		if (m == n) {
+			chirpRe = chirpIm = filterRe = filterIm = null;
+			scratch = null;
+			return;
+		}
+
+		chirpRe = new double[n];
+		chirpIm = new double[n];
+		filterRe = new double[m];
+		filterIm = new double[m];
+
+		for (int k = 0; k < n; k++) {
+			// k^2 mod 2n keeps the angle small enough to be accurate.
+			double angle = Math.PI * ((long) k * k % (2L * n)) / n;
+			chirpRe[k] = Math.cos(angle);
+			chirpIm[k] = -Math.sin(angle);
+
+			filterRe[k] = chirpRe[k];
+			filterIm[k] = -chirpIm[k];
+
+			if (k > 0) {
+				filterRe[m - k] = chirpRe[k];
+				filterIm[m - k] = -chirpIm[k];
+			}
+		}
+
+		radix2(filterRe, filterIm);
+		scratch = ThreadLocal.withInitial(() -> new double[2][m]);
+	}
+
+	int length() {
+		return n;
+	}
+
+	/**
+	 * Transforms the sequence in place (with the usual sign, {@code e^(-2 pi i jk
+	 * / n)}, and no scaling).
+	 */
+	void forward(double[] re, double[] im) {
+		if (m == n)
+			radix2(re, im);
+		else
+			bluestein(re, im);
+	}
+
+	/**
+	 * Transforms the sequence back in place, without dividing by {@code n}.
+	 */
+	void inverse(double[] re, double[] im) {
+		// The inverse is the conjugate of the transform of the conjugate.
+		for (int i = 0; i < n; i++)
+			im[i] = -im[i];
+
+		forward(re, im);
+
+		for (int i = 0; i < n; i++)
+			im[i] = -im[i];
+	}
+
+	private void radix2(double[] re, double[] im) {
+		for (int i = 0; i < m; i++) {
+			int j = reverse[i];
+
+			if (i < j) {
+				double t = re[i];
+				re[i] = re[j];
+				re[j] = t;
+				t = im[i];
+				im[i] = im[j];
+				im[j] = t;
+			}
+		}
+
+		for (int size = 2; size <= m; size <<= 1) {
+			int half = size >>> 1;
+			int step = m / size;
+
+			for (int start = 0; start < m; start += size)
+				for (int k = 0; k < half; k++) {
+					double wr = cos[k * step];
+					double wi = sin[k * step];
+					int a = start + k;
+					int b = a + half;
+
+					double tr = re[b] * wr - im[b] * wi;
+					double ti = re[b] * wi + im[b] * wr;
+					re[b] = re[a] - tr;
+					im[b] = im[a] - ti;
+					re[a] += tr;
+					im[a] += ti;
+				}
+		}
+	}
+
+	private void bluestein(double[] re, double[] im) {
+		var buffers = scratch.get();
+		double[] ar = buffers[0];
+		double[] ai = buffers[1];
+
+		// Multiply by the chirp, and pad
+		for (int k = 0; k < n; k++) {
+			ar[k] = re[k] * chirpRe[k] - im[k] * chirpIm[k];
+			ai[k] = re[k] * chirpIm[k] + im[k] * chirpRe[k];
+		}
+
+		Arrays.fill(ar, n, m, 0);
+		Arrays.fill(ai, n, m, 0);
+
+		// Convolve with the conjugate chirp, by way of the radix-2 transform (the
+		// inverse being the conjugate of the transform of the conjugate)
+		radix2(ar, ai);
+
+		for (int k = 0; k < m; k++) {
+			double r = ar[k] * filterRe[k] - ai[k] * filterIm[k];
+			double i = ar[k] * filterIm[k] + ai[k] * filterRe[k];
+			ar[k] = r;
+			ai[k] = -i;
+		}
+
+		radix2(ar, ai);
+
+		// Multiply by the chirp again (undoing the conjugate, and scaling by 1/m)
+		for (int k = 0; k < n; k++) {
+			double r = ar[k] / m;
+			double i = -ai[k] / m;
+			re[k] = r * chirpRe[k] - i * chirpIm[k];
+			im[k] = r * chirpIm[k] + i * chirpRe[k];
+		}
+	}
+}
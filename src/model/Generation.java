@@ -0,0 +1,140 @@
+package model;
+
+/**
+ * A copy of the world as of one generation, which any thread can read while
+ * the model itself moves on.
+ * <p>
+ * Models are only safe to use from the thread that steps them (the FX thread,
+ * in the app), so anything else that wants to look at the world, e.g., an
+ * exporter or a statistics collector, should work from one of these instead.
+ * See {@link GenerationFeed} for handing them over between threads.
+ * <p>
+ * A generation from {@link ILife#snapshot} never changes. One from a
+ * {@link GenerationFeed} doesn't change until it's {@link #close closed}, after
+ * which the feed may reuse it for a later generation, so it should be read in a
+ * try-with-resources block.
+ *
+ * @see ILife#snapshot
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+public final class Generation implements AutoCloseable {
+	private final GenerationFeed feed; // that reuses this, or null
+	int readers;                       // holders that haven't closed this yet (guarded by the feed)
+
+	private long epoch;
+	private long generation;
+	private int nrows;
+	private int ncols;
+	private byte[] states; // row-major, as in ILife#getRegion
+	private volatile long population; // or -1 if not counted yet
+
+	Generation(GenerationFeed feed) {
+		this.feed = feed;
+	}
+
+	/**
+	 * Copies the whole world. This must be called from the thread that steps the
+	 * model.
+	 *
+	 * @param generation the number of the generation, which is up to the caller
+	 *                   (e.g., the step count)
+	 */
+	static Generation of(ILife model, long generation) {
+		var copy = new Generation(null);
+		copy.fill(model, generation, 0);
+		return copy;
+	}
+
+	/**
+	 * Copies the whole world over this one's, reusing the array if it's the
+	 * right size.
+	 */
+	void fill(ILife model, long generation, long epoch) {
+		int ncells = Math.multiplyExact(model.nrows(), model.ncols());
+
+		if (states == null || states.length != ncells)
+			states = new byte[ncells];
+
+		this.epoch = epoch;
+		this.generation = generation;
+		this.nrows = model.nrows();
+		this.ncols = model.ncols();
+		this.population = -1;
+		model.getRegion(0, 0, nrows, ncols, states);
+	}
+
+	/**
+	 * @return the number of times the feed this came from had published as of
+	 *         this generation (0 for a {@link ILife#snapshot})
+	 */
+	public long epoch() {
+		return epoch;
+	}
+
+	/**
+	 * @return the number this generation was taken with
+	 */
+	public long generation() {
+		return generation;
+	}
+
+	public int nrows() {
+		return nrows;
+	}
+
+	public int ncols() {
+		return ncols;
+	}
+
+	public CellState get(int row, int col) {
+		return Regions.STATES[states[row * ncols + col]];
+	}
+
+	/**
+	 * Copies a block of cells, as {@link ILife#getRegion} would have at the time.
+	 */
+	public void getRegion(int row, int col, int height, int width, byte[] dest) {
+		for (int r = 0; r < height; r++)
+			System.arraycopy(states, (row + r) * ncols + col, dest, r * width, width);
+	}
+
+	/**
+	 * Execute an action for all live cells, in row-major order.
+	 */
+	public void forAllLife(ILife.Callback action) {
+		for (int i = 0; i < states.length; i++)
+			if (states[i] != CellState.DEAD.ordinal())
+				action.invoke(i / ncols, i % ncols, Regions.STATES[states[i]]);
+	}
+
+	/**
+	 * @return the number of live cells (counted on the first call, by whichever
+	 *         thread makes it)
+	 */
+	public long populationCount() {
+		long count = population;
+
+		if (count < 0) {
+			count = 0;
+
+			for (byte state : states)
+				if (state != CellState.DEAD.ordinal())
+					count++;
+
+			population = count;
+		}
+
+		return count;
+	}
+
+	/**
+	 * Lets the feed this came from reuse it. Does nothing for a
+	 * {@link ILife#snapshot}.
+	 */
+	@Override
+	public void close() {
+		if (feed != null)
+			feed.release(this);
+	}
+}
@@ -0,0 +1,113 @@
+package model;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands the latest {@link Generation} of a model over from the thread that steps
+ * it to any number of readers on other threads.
+ * <p>
+ * Publishing copies the world into a spare generation and swaps it in, so
+ * readers never hold up the model, and the model never waits for readers; a
+ * slow reader simply skips the generations it missed. There are two
+ * generations, the latest and the spare, which take turns (so nothing is
+ * allocated from one publication to the next), unless a reader still holds the
+ * spare, in which case it's left to the reader and a new one takes its place.
+ * <p>
+ * Nothing is copied unless someone has asked for a generation in the last
+ * {@value #WATCH_LEASE_MILLIS} ms, so an unread feed costs nothing. Readers
+ * that want every generation should keep asking at least that often.
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+public final class GenerationFeed {
+	/** How long asking for a generation keeps generations coming */
+	private static final long WATCH_LEASE_MILLIS = 1000;
+
+	private Generation latest; // guarded by this
+	private Generation spare;  // guarded by this; null if a reader kept it
+	private long epoch;        // only touched by the publishing thread
+	private volatile long lastWatched; // System.nanoTime() of the last ask, or 0 if never
+
+	/**
+	 * @return whether anyone has asked for a generation lately, i.e., whether
+	 *         {@link #publish} is worth calling
+	 */
+	public boolean isWatched() {
+		long asked = lastWatched;
+		return asked != 0
+		    && System.nanoTime() - asked < TimeUnit.MILLISECONDS.toNanos(WATCH_LEASE_MILLIS);
+	}
+
+	/**
+	 * Publishes the current state of the model. This must be called from the
+	 * thread that steps the model.
+	 */
+	public void publish(ILife model, long generation) {
+		Generation next;
+
+		synchronized (this) {
+			next = (spare != null && spare.readers == 0) ? spare : new Generation(this);
+			spare = null;
+		}
+
+		// Nobody else can get at it until it's swapped in.
+		next.fill(model, generation, ++epoch);
+
+		synchronized (this) {
+			spare = latest;
+			latest = next;
+			notifyAll();
+		}
+	}
+
+	/**
+	 * @return the latest published generation (which must be closed when done
+	 *         with), or {@code null} if there isn't one yet
+	 */
+	public synchronized Generation latest() {
+		lastWatched = System.nanoTime();
+		return acquire();
+	}
+
+	/**
+	 * Waits for a generation to be published after the given one.
+	 *
+	 * @param seen the {@link Generation#epoch epoch} of the last generation the
+	 *             caller has seen, or 0
+	 * @return the latest generation (which must be closed when done with), or
+	 *         {@code null} if there wasn't a new one in time
+	 */
+	public synchronized Generation awaitNext(long seen, long timeout, TimeUnit unit)
+	    throws InterruptedException {
+		lastWatched = System.nanoTime();
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+		while (latest == null || latest.epoch() <= seen) {
+			long remaining = deadline - System.nanoTime();
+
+			if (remaining <= 0)
+				return null;
+
+			TimeUnit.NANOSECONDS.timedWait(this, remaining);
+		}
+
+		return acquire();
+	}
+
+	private Generation acquire() {
+		if (latest != null)
+			latest.readers++;
+
+		return latest;
+	}
+
+	/**
+	 * Called when a reader is done with a generation (see
+	 * {@link Generation#close}).
+	 */
+	synchronized void release(Generation generation) {
+		assert generation.readers > 0;
+		generation.readers--;
+	}
+}
@@ -0,0 +1,280 @@
+package model;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Cellular automata of the "Generations" family (see {@link GenerationsRule}),
+ * such as Brian's Brain ({@code B2/S/C3}) and Star Wars ({@code B2/S345/C4}).
+ * <p>
+ * Each cell's state is a byte: 0 is dead, 1 is alive (firing), and anything
+ * higher is dying, counting up to the number of states before wrapping back
+ * around to dead. Only firing cells count as neighbors. The rule is compiled
+ * into a table of the next state by state and number of firing neighbors, so a
+ * step is just the neighbor count and one lookup per cell. Large worlds are
+ * stepped a row per task, in parallel.
+ * <p>
+ * Dying cells are shaded on a ramp by the renderer (see {@link Shaded}), but
+ * they all look {@link CellState#RED} to everything else; setting a cell to any
+ * state other than DEAD or ALIVE starts it dying.
+ * <p>
+ * The rule is set with the {@code lifeapp.generations} system property (e.g.,
+ * {@code -Dlifeapp.generations=B2/S345/C4}), Brian's Brain by default.
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+public class GenerationsLife implements ILife, Shaded {
+	private static final CellState DYING = CellState.RED;
+
+	/** Smaller worlds aren't worth farming out to other threads */
+	private static final long PARALLEL_THRESHOLD = 1 << 18;
+
+	private final GenerationsRule rule;
+	private final byte[] transitions; // by state * 9 + firing neighbors
+
+	private byte[] cells;   // row-major states
+	private byte[] next;    // scratch for step()
+	private byte[] firing;  // 1 where the state is 1, to add up as neighbors
+
+	private int nrows;
+	private int ncols;
+	private final SeededRandom random = new SeededRandom();
+
+	public GenerationsLife() {
+		this(GenerationsRule.parse(System.getProperty("lifeapp.generations",
+		    GenerationsRule.BRIANS_BRAIN.toString())));
+	}
+
+	public GenerationsLife(GenerationsRule rule) {
+		this.rule = rule;
+		this.transitions = rule.transitions();
+	}
+
+	@Override
+	public void resize(int nrows, int ncols) {
+		this.nrows = nrows;
+		this.ncols = ncols;
+		this.cells = new byte[Math.multiplyExact(nrows, ncols)];
+		this.next = new byte[cells.length];
+		this.firing = new byte[cells.length];
+	}
+
+	@Override
+	public int nrows() {
+		return nrows;
+	}
+
+	@Override
+	public int ncols() {
+		return ncols;
+	}
+
+	@Override
+	public long seed() {
+		return random.seed();
+	}
+
+	@Override
+	public void reseed(long seed) {
+		random.reseed(seed);
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(cells, (byte) 0);
+		Arrays.fill(firing, (byte) 0);
+	}
+
+	@Override
+	public void randomize() {
+		randomize(0.5);
+	}
+
+	@Override
+	public void randomize(double density) {
+		Soup.generate(nrows, ncols, density, random, (row, bits, generator) -> {
+			int offset = row * ncols;
+
+			for (int col = 0; col < ncols; col++) {
+				byte state = (byte) (Soup.isSet(bits, col) ? 1 : 0);
+				cells[offset + col] = state;
+				firing[offset + col] = state;
+			}
+		});
+	}
+
+	/**
+	 * @return the byte state for a {@link CellState}
+	 */
+	private byte stateOf(CellState state) {
+		if (state == CellState.DEAD)
+			return 0;
+		else if (state == CellState.ALIVE || rule.states() == 2)
+			return 1;
+		else
+			return 2;
+	}
+
+	/**
+	 * @return the {@link CellState} for a byte state
+	 */
+	private static CellState cellStateOf(byte state) {
+		if (state == 0)
+			return CellState.DEAD;
+		else if (state == 1)
+			return CellState.ALIVE;
+		else
+			return DYING;
+	}
+
+	@Override
+	public Set<CellState> states() {
+		if (rule.states() == 2)
+			return EnumSet.of(CellState.DEAD, CellState.ALIVE);
+
+		return EnumSet.of(CellState.DEAD, CellState.ALIVE, DYING);
+	}
+
+	@Override
+	public CellState get(int row, int col) {
+		return cellStateOf(cells[row * ncols + col]);
+	}
+
+	@Override
+	public void set(int row, int col, CellState state) {
+		int cell = row * ncols + col;
+		cells[cell] = stateOf(state);
+		firing[cell] = (byte) (cells[cell] == 1 ? 1 : 0);
+	}
+
+	@Override
+	public void getRegion(int row, int col, int height, int width, byte[] dest) {
+		byte dying = (byte) DYING.ordinal();
+
+		for (int r = 0; r < height; r++) {
+			int from = (row + r) * ncols + col;
+			int to = r * width;
+
+			for (int c = 0; c < width; c++) {
+				byte state = cells[from + c];
+				dest[to + c] = (state == 0 || state == 1) ? state : dying;
+			}
+		}
+	}
+
+	@Override
+	public void setRegion(int row, int col, int height, int width, byte[] src) {
+		for (int r = 0; r < height; r++)
+			for (int c = 0; c < width; c++)
+				set(row + r, col + c, Regions.STATES[src[r * width + c]]);
+	}
+
+	@Override
+	public int shades() {
+		return rule.states();
+	}
+
+	/**
+	 * Firing cells are the darkest shade, fading out as they die.
+	 */
+	@Override
+	public int shade(int row, int col) {
+		int state = cells[row * ncols + col] & 0xFF;
+		return (state == 0) ? 0 : rule.states() - state;
+	}
+
+	@Override
+	public boolean step(Callback action) {
+		// Calculate the next states
+		var rows = IntStream.range(0, nrows);
+
+		if ((long) nrows * ncols >= PARALLEL_THRESHOLD)
+			rows = rows.parallel();
+
+		rows.forEach(this::stepRow);
+
+		var swap = cells;
+		cells = next;
+		next = swap;
+
+		var apply = new LifeEvents.Apply();
+		apply.begin();
+		int updates = 0;
+
+		// Report the changes (now that the new states are in place for shade())
+		for (int cell = 0; cell < cells.length; cell++) {
+			byte state = cells[cell];
+
+			if (state == next[cell])
+				continue;
+
+			firing[cell] = (byte) (state == 1 ? 1 : 0);
+			action.invoke(cell / ncols, cell % ncols, cellStateOf(state));
+			updates++;
+		}
+
+		apply.commit(this, updates);
+
+		return updates > 0;
+	}
+
+	/**
+	 * Works out the next states of a row. The firing neighbors are added up a
+	 * column of three at a time, sliding along the row, so each cell only adds
+	 * up one new column.
+	 */
+	private void stepRow(int row) {
+		int above = ((row + nrows - 1) % nrows) * ncols;
+		int here = row * ncols;
+		int below = ((row + 1) % nrows) * ncols;
+
+		int west = column(above, here, below, ncols - 1);
+		int center = column(above, here, below, 0);
+
+		for (int col = 0; col < ncols; col++) {
+			int east = column(above, here, below, (col + 1 == ncols) ? 0 : col + 1);
+			int neighbors = west + center + east - firing[here + col];
+
+			next[here + col] = transitions[(cells[here + col] & 0xFF) * 9 + neighbors];
+
+			west = center;
+			center = east;
+		}
+	}
+
+	private int column(int above, int here, int below, int col) {
+		return firing[above + col] + firing[here + col] + firing[below + col];
+	}
+
+	@Override
+	public void forAllLife(Callback action) {
+		for (int cell = 0; cell < cells.length; cell++)
+			if (cells[cell] != 0)
+				action.invoke(cell / ncols, cell % ncols, cellStateOf(cells[cell]));
+	}
+
+	/**
+	 * @return the number of cells that are firing or dying
+	 */
+	@Override
+	public long populationCount() {
+		long count = 0;
+
+		for (byte state : cells)
+			if (state != 0)
+				count++;
+
+		return count;
+	}
+
+	/**
+	 * @return Description of this model
+	 */
+	public String description() {
+		return "Generations rule %s.\nLive cells that don't survive take %d more generations to die, and only live (darkest) cells count as neighbors."
+		    .formatted(rule, rule.states() - 2);
+	}
+}
@@ -0,0 +1,118 @@
+package model;
+
+import java.util.regex.Pattern;
+
+/**
+ * A rule of the "Generations" family, where live cells that don't survive
+ * don't die right away, but go through a number of dying states first (and
+ * don't count as neighbors while doing so). Life itself is the special case
+ * with no dying states.
+ * <p>
+ * Rules are written as in Golly, either {@code B2/S/C3} (birth counts, survival
+ * counts, number of states), or as {@code /2/3} (survival first, then birth).
+ * The number of states can be left off (e.g., {@code B3/S23}), meaning 2.
+ *
+ * @param births    bit {@code n} is set if a dead cell with {@code n} live
+ *                  neighbors is born
+ * @param survivals bit {@code n} is set if a live cell with {@code n} live
+ *                  neighbors survives
+ * @param states    the number of states, including dead and alive (2 to 256)
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+public record GenerationsRule(int births, int survivals, int states) {
+	// (before the constants below, which need them to be parsed)
+	private static final Pattern BSC = Pattern
+	    .compile("[Bb]([0-8]*)/[Ss]([0-8]*)(?:/[Cc]?(\\d+))?");
+	private static final Pattern SBC = Pattern.compile("([0-8]*)/([0-8]*)(?:/(\\d+))?");
+
+	/** Brian's Brain: cells fire with exactly 2 firing neighbors, then rest */
+	public static final GenerationsRule BRIANS_BRAIN = parse("B2/S/C3");
+
+	/** Star Wars: like Brian's Brain, but firing cells can keep firing */
+	public static final GenerationsRule STAR_WARS = parse("B2/S345/C4");
+
+	public GenerationsRule {
+		if (states < 2 || states > 256)
+			throw new IllegalArgumentException("Number of states must be from 2 to 256: " + states);
+	}
+
+	/**
+	 * Reads a rule in either of the forms above.
+	 *
+	 * @throws IllegalArgumentException if the rule isn't in either form
+	 */
+	public static GenerationsRule parse(String rule) {
+		var text = rule.strip();
+		var matcher = BSC.matcher(text);
+		int birthGroup = 1, survivalGroup = 2;
+
+		if (!matcher.matches()) {
+			matcher = SBC.matcher(text);
+			birthGroup = 2;
+			survivalGroup = 1;
+
+			if (!matcher.matches())
+				throw new IllegalArgumentException("Not a Generations rule: " + rule);
+		}
+
+		var states = matcher.group(3);
+		return new GenerationsRule(counts(matcher.group(birthGroup)),
+		    counts(matcher.group(survivalGroup)), (states == null) ? 2 : Integer.parseInt(states));
+	}
+
+	private static int counts(String digits) {
+		int mask = 0;
+
+		for (int i = 0; i < digits.length(); i++)
+			mask |= 1 << (digits.charAt(i) - '0');
+
+		return mask;
+	}
+
+	/**
+	 * Compiles the rule into a table of the next state, indexed by
+	 * {@code state * 9 + liveNeighbors}.
+	 */
+	byte[] transitions() {
+		var table = new byte[states * 9];
+
+		for (int n = 0; n <= 8; n++) {
+			// Dead cells are born, or not.
+			table[n] = (byte) (((births >>> n) & 1) != 0 ? 1 : 0);
+
+			// Live cells survive, or start dying (or just die, if there's no such thing).
+			if (((survivals >>> n) & 1) != 0)
+				table[9 + n] = 1;
+			else
+				table[9 + n] = (byte) (states > 2 ? 2 : 0);
+
+			// Dying cells carry on dying, whatever their neighbors.
+			for (int state = 2; state < states; state++)
+				table[state * 9 + n] = (byte) ((state + 1 < states) ? state + 1 : 0);
+		}
+
+		return table;
+	}
+
+	/**
+	 * @return the rule in B/S/C form
+	 */
+	@Override
+	public String toString() {
+		var text = new StringBuilder("B");
+
+		for (int n = 0; n <= 8; n++)
+			if (((births >>> n) & 1) != 0)
+				text.append(n);
+
+		text.append("/S");
+
+		for (int n = 0; n <= 8; n++)
+			if (((survivals >>> n) & 1) != 0)
+				text.append(n);
+
+		return text.append("/C").append(states).toString();
+	}
+}
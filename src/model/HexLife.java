@@ -14,9 +14,11 @@ import edu.princeton.cs.algs4.Queue;
  */
 public class HexLife implements ILife {
 	private Graph world;
-	private CellState[] cells; // row-col indexed
+	private CellState[] cells; // indexed by vertex
+	private VertexOrder order; // which vertex is which cell
 	private int nrows;
 	private int ncols;
+	private final SeededRandom random = new SeededRandom();
 
 	@Override
 	public void resize(int nrows, int ncols) {
@@ -24,6 +26,7 @@ public class HexLife implements ILife {
 		this.cells = new CellState[nrows * ncols];
 		this.nrows = nrows;
 		this.ncols = ncols;
+		this.order = VertexOrder.of(nrows, ncols);
 
 		clear();
 
@@ -32,6 +35,26 @@ public class HexLife implements ILife {
 			initializeNeighbors(current);
 	}
 
+	@Override
+	public int nrows() {
+		return nrows;
+	}
+
+	@Override
+	public int ncols() {
+		return ncols;
+	}
+
+	@Override
+	public long seed() {
+		return random.seed();
+	}
+
+	@Override
+	public void reseed(long seed) {
+		random.reseed(seed);
+	}
+
 	/**
 	 * Returns index of cell based on row and col
 	 *
@@ -40,7 +63,7 @@ public class HexLife implements ILife {
 	 * @return int cell index
 	 */
 	private int convertToIndex(int row, int col) {
-		return row * ncols + col;
+		return order.vertex(row, col);
 	}
 
 	/**
@@ -50,7 +73,7 @@ public class HexLife implements ILife {
 	 * @return int cell's row
 	 */
 	private int convertToRow(int index) {
-		return index / ncols;
+		return order.row(index);
 	}
 
 	/**
@@ -60,7 +83,7 @@ public class HexLife implements ILife {
 	 * @return int cell's col
 	 */
 	private int convertToCol(int index) {
-		return index % ncols;
+		return order.col(index);
 	}
 
 	/**
@@ -114,11 +137,12 @@ public class HexLife implements ILife {
 
 	@Override
 	public void randomize() {
-		for (int current = 0; current < cells.length; current++)
-			if (RANDOM.nextBoolean())
-				cells[current] = CellState.ALIVE;
-			else
-				cells[current] = CellState.DEAD;
+		randomize(0.5);
+	}
+
+	@Override
+	public void randomize(double density) {
+		Soup.fill(cells, order, density, CellState.ALIVE, random);
 	}
 
 	@Override
@@ -131,6 +155,16 @@ public class HexLife implements ILife {
 		cells[convertToIndex(row, col)] = state;
 	}
 
+	@Override
+	public void getRegion(int row, int col, int height, int width, byte[] dest) {
+		Regions.get(cells, order, row, col, height, width, dest);
+	}
+
+	@Override
+	public void setRegion(int row, int col, int height, int width, byte[] src) {
+		Regions.set(cells, order, row, col, height, width, src);
+	}
+
 	@Override
 	public boolean step(Callback action) {
 		Queue<Cell> queue = new Queue<>();
@@ -160,6 +194,10 @@ public class HexLife implements ILife {
 
 		boolean worldChanged = false;
 
+		var apply = new LifeEvents.Apply();
+		apply.begin();
+		int updates = queue.size();
+
 		// Make needed updates (done afterwards to prevent invalid updates)
 		while (!queue.isEmpty()) {
 			Cell cell = queue.dequeue();
@@ -173,6 +211,8 @@ public class HexLife implements ILife {
 			set(cell.row(), cell.col(), cell.state());
 		}
 
+		apply.commit(this, updates);
+
 		return worldChanged;
 	}
 
@@ -0,0 +1,357 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * A memory-bounded record of recent generations, for stepping backwards and
+ * scrubbing through a run without re-simulating it.
+ * <p>
+ * Each generation is stored as a delta: a packed list of the cells that
+ * changed, with both their old and new states, so a delta can be applied in
+ * either direction. (Several generations advanced at once can also be stored
+ * as one delta of their net change, see {@link #commit(int)}, and are then
+ * stepped over together.) Every {@code keyframeInterval} deltas, a full copy of
+ * the world is also kept, so that seeking to an arbitrary generation costs at
+ * most one keyframe restore plus {@code keyframeInterval / 2} deltas.
+ * <p>
+ * The frames live in a ring buffer. Once the total size of the frames exceeds
+ * the byte budget, the oldest ones are dropped.
+ * <p>
+ * The history keeps its own mirror of the world's states (which is how it knows
+ * the old state of each changed cell), so it must be {@link #reset} whenever
+ * the world is changed by anything other than a recorded step. Only cell states
+ * are recorded; any model-specific {@link ILife#saveExtras extras} are not
+ * rewound.
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+public class History {
+	/** Rough per-frame bookkeeping cost, in bytes */
+	private static final int FRAME_OVERHEAD = 48;
+
+	/** Larger worlds can't be recorded, since cell indices must fit in a delta. */
+	private static final int MAX_CELLS = 1 << 25;
+
+	private static final CellState[] STATES = CellState.values();
+
+	/**
+	 * The changes that produced one generation (or more) from the previous one.
+	 *
+	 * @param delta      packed {@code index << 6 | old << 3 | new} entries
+	 * @param generation the generation after the change
+	 * @param keyframe   the whole world after the change, or {@code null}
+	 */
+	private record Frame(int[] delta, long generation, byte[] keyframe) {
+		long bytes() {
+			return FRAME_OVERHEAD + 4L * delta.length + (keyframe == null ? 0 : keyframe.length);
+		}
+	}
+
+	private long budget;
+	private final int keyframeInterval;
+
+	private ILife model;
+	private int ncols;
+	private byte[] current; // mirror of the model; null if recording is disabled
+
+	// Ring buffer of frames. Frame i turns the generation of frame i - 1 (or the
+	// first generation, for frame 0) into its own.
+	private Frame[] frames = new Frame[64];
+	private int head;
+	private int size;
+	private int position; // number of frames that are currently applied
+	private long firstGeneration;
+	private long firstFrame; // number of frames before the head, for spacing keyframes
+	private long bytes;
+
+	// Delta of the step in progress
+	private int[] pending = new int[256];
+	private int npending;
+
+	/**
+	 * @param budget           maximum number of bytes to spend on frames
+	 * @param keyframeInterval number of generations between full copies of the
+	 *                         world
+	 */
+	public History(long budget, int keyframeInterval) {
+		assert keyframeInterval > 0;
+		this.budget = budget;
+		this.keyframeInterval = keyframeInterval;
+	}
+
+	/**
+	 * Forgets everything and starts recording again from the model's current
+	 * state, which becomes generation 0.
+	 */
+	public void reset(ILife model) {
+		this.model = model;
+		this.ncols = model.ncols();
+
+		long ncells = (long) model.nrows() * ncols;
+
+		if (budget > 0 && ncells <= MAX_CELLS) {
+			current = new byte[(int) ncells];
+			model.getRegion(0, 0, model.nrows(), ncols, current);
+		}
+		else
+			current = null;
+
+		Arrays.fill(frames, null);
+		head = size = position = 0;
+		firstGeneration = firstFrame = 0;
+		bytes = 0;
+		npending = 0;
+	}
+
+	/**
+	 * Changes the byte budget, dropping the oldest frames if necessary. A budget of
+	 * zero disables recording (from the next {@link #reset}).
+	 */
+	public void setBudget(long budget) {
+		this.budget = budget;
+		evict();
+	}
+
+	/**
+	 * Records a cell change from the step in progress. Use this as (or from) the
+	 * callback passed to {@link ILife#step}.
+	 */
+	public void record(int row, int col, CellState state) {
+		if (current == null)
+			return;
+
+		int index = row * ncols + col;
+		int old = current[index];
+		int now = state.ordinal();
+
+		if (old == now)
+			return; // duplicate notification
+
+		if (npending == pending.length)
+			pending = Arrays.copyOf(pending, 2 * npending);
+
+		pending[npending++] = index << 6 | old << 3 | now;
+		current[index] = (byte) now;
+	}
+
+	/**
+	 * Finishes the step in progress, storing it as the newest generation. If we
+	 * had previously stepped back, the generations that were stepped over are
+	 * discarded first.
+	 */
+	public void commit() {
+		commit(1);
+	}
+
+	/**
+	 * Finishes the changes in progress as the net change of the given number of
+	 * generations (e.g., from {@link ILife#advance}), which are then stepped over
+	 * as one. Otherwise the same as {@link #commit()}.
+	 */
+	public void commit(int generations) {
+		if (current == null)
+			return;
+
+		assert generations > 0;
+
+		// Branching off from the past discards the old future.
+		while (size > position)
+			bytes -= removeLast().bytes();
+
+		long generation = generation() + generations;
+		boolean affordable = current.length <= budget / 4; // else keyframes crowd out deltas
+		byte[] keyframe = ((firstFrame + position + 1) % keyframeInterval == 0 && affordable)
+		    ? current.clone()
+		    : null;
+		var frame = new Frame(Arrays.copyOf(pending, npending), generation, keyframe);
+		npending = 0;
+
+		if (size == frames.length)
+			frames = unwrap(2 * size);
+
+		frames[(head + size) % frames.length] = frame;
+		size++;
+		position++;
+		bytes += frame.bytes();
+
+		evict();
+	}
+
+	/**
+	 * @return whether changes are being recorded, i.e., whether the budget allowed
+	 *         it as of the last {@link #reset}
+	 */
+	public boolean isRecording() {
+		return current != null;
+	}
+
+	/** @return the current generation number */
+	public long generation() {
+		return generationAt(position);
+	}
+
+	/** @return the oldest generation that can be returned to */
+	public long oldest() {
+		return firstGeneration;
+	}
+
+	/** @return the newest generation that has been recorded */
+	public long newest() {
+		return generationAt(size);
+	}
+
+	/** @return the generation with the given number of frames applied */
+	private long generationAt(int position) {
+		return (position == 0) ? firstGeneration : get(position - 1).generation();
+	}
+
+	/**
+	 * @return {@code true} if we've stepped back, and so the next generation can
+	 *         be replayed rather than simulated
+	 */
+	public boolean canRedo() {
+		return position < size;
+	}
+
+	/**
+	 * Moves the model to the given generation (clamped to the recorded range). If
+	 * that generation is in the middle of generations that were stored as one,
+	 * the model is moved to the start of them.
+	 *
+	 * @param action invoked for each cell whose state is changed
+	 */
+	public void seek(long generation, ILife.Callback action) {
+		if (current == null)
+			return;
+
+		seekFrame(positionOf(Math.clamp(generation, oldest(), newest())), action);
+	}
+
+	/**
+	 * Moves the model forward to the next recorded generation (or generations,
+	 * if they were stored as one). Use {@link #canRedo} to check there is one.
+	 *
+	 * @param action invoked for each cell whose state is changed
+	 * @return the number of generations moved forward
+	 */
+	public long seekNext(ILife.Callback action) {
+		if (current == null || position == size)
+			return 0;
+
+		long from = generation();
+		seekFrame(position + 1, action);
+		return generation() - from;
+	}
+
+	/** @return the number of frames applied as of the given generation */
+	private int positionOf(long generation) {
+		int low = 0;
+		int high = size;
+
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+
+			if (generationAt(middle) <= generation)
+				low = middle;
+			else
+				high = middle - 1;
+		}
+
+		return low;
+	}
+
+	private void seekFrame(int target, ILife.Callback action) {
+		// Jump to the nearest keyframe first, if that's cheaper than walking.
+		long keyFrame = Math.round((double) (firstFrame + target) / keyframeInterval)
+		    * keyframeInterval;
+		int keyPosition = (int) (keyFrame - firstFrame);
+
+		if (keyPosition >= 1 && keyPosition <= size && get(keyPosition - 1).keyframe() != null
+		    && Math.abs(target - keyPosition) + keyframeInterval < Math.abs(target - position))
+			restore(keyPosition, action);
+
+		while (position > target)
+			undo(get(--position), action);
+
+		while (position < target)
+			redo(get(position++), action);
+	}
+
+	/** Replaces the whole world with the keyframe stored in the given frame. */
+	private void restore(int keyPosition, ILife.Callback action) {
+		byte[] keyframe = get(keyPosition - 1).keyframe();
+
+		for (int i = 0; i < current.length; i++)
+			if (current[i] != keyframe[i])
+				action.invoke(i / ncols, i % ncols, STATES[keyframe[i]]);
+
+		System.arraycopy(keyframe, 0, current, 0, current.length);
+		model.setRegion(0, 0, model.nrows(), ncols, current);
+		position = keyPosition;
+	}
+
+	private void undo(Frame frame, ILife.Callback action) {
+		int[] delta = frame.delta();
+
+		for (int i = delta.length - 1; i >= 0; i--)
+			apply(delta[i] >>> 6, (delta[i] >>> 3) & 7, action);
+	}
+
+	private void redo(Frame frame, ILife.Callback action) {
+		for (int entry : frame.delta())
+			apply(entry >>> 6, entry & 7, action);
+	}
+
+	private void apply(int index, int state, ILife.Callback action) {
+		int row = index / ncols;
+		int col = index % ncols;
+		current[index] = (byte) state;
+		model.set(row, col, STATES[state]);
+		action.invoke(row, col, STATES[state]);
+	}
+
+	/**
+	 * Drops the oldest frames until we're within budget. If we've stepped all the
+	 * way back, the newest frames are dropped instead.
+	 */
+	private void evict() {
+		while (bytes > budget && size > 0) {
+			if (position == 0) {
+				bytes -= removeLast().bytes();
+				continue;
+			}
+
+			bytes -= frames[head].bytes();
+			firstGeneration = frames[head].generation();
+			firstFrame++;
+			frames[head] = null;
+			head = (head + 1) % frames.length;
+			size--;
+			position--;
+		}
+	}
+
+	private Frame get(int i) {
+		return frames[(head + i) % frames.length];
+	}
+
+	private Frame removeLast() {
+		int last = (head + size - 1) % frames.length;
+		var frame = frames[last];
+		frames[last] = null;
+		size--;
+		return frame;
+	}
+
+	/** @return a copy of the ring buffer, starting from the head */
+	private Frame[] unwrap(int capacity) {
+		var copy = new Frame[capacity];
+
+		for (int i = 0; i < size; i++)
+			copy[i] = get(i);
+
+		head = 0;
+		return copy;
+	}
+}
@@ -1,6 +1,8 @@
 package model;
 
-import java.util.Random;
+import java.nio.ByteBuffer;
+import java.util.EnumSet;
+import java.util.Set;
 
 /**
  * Contract for algorithms that implement Life-like cellular automata.
@@ -25,16 +27,19 @@ public interface ILife {
 	}
 
 	/**
-	 * For use by implementing classes.
-	 *
-	 * @see #randomize()
+	 * Re-instantiate the world with new dimensions.
 	 */
-	static final Random RANDOM = new Random();
+	void resize(int nrows, int ncols);
 
 	/**
-	 * Re-instantiate the world with new dimensions.
+	 * @return the number of rows in the world (as of the last resize)
 	 */
-	void resize(int nrows, int ncols);
+	int nrows();
+
+	/**
+	 * @return the number of columns in the world (as of the last resize)
+	 */
+	int ncols();
 
 	/**
 	 * End all life.
@@ -43,9 +48,35 @@ public interface ILife {
 
 	/**
 	 * Chaos!
+	 * <p>
+	 * The result depends only on the dimensions and the {@link #seed()} (or
+	 * rather, on the state of the model's random generator), so that soups can be
+	 * reproduced.
 	 */
 	void randomize();
 
+	/**
+	 * Chaos, with roughly the given fraction (between 0 and 1) of cells alive.
+	 * <p>
+	 * Models with their own idea of a random world may ignore the density, which
+	 * is what the default implementation does.
+	 */
+	default void randomize(double density) {
+		randomize();
+	}
+
+	/**
+	 * @return the seed the model's random generator was last (re)started from
+	 */
+	long seed();
+
+	/**
+	 * Restarts the model's random generator from the given seed. Reseeding and
+	 * then randomizing gives the same world every time and, for models that make
+	 * random choices while stepping, the same run afterwards.
+	 */
+	void reseed(long seed);
+
 	/**
 	 * Queries the state of a cell.
 	 */
@@ -56,6 +87,67 @@ public interface ILife {
 	 */
 	void set(int row, int col, CellState state);
 
+	/**
+	 * Copies the states of a rectangular block of cells into {@code dest}, row by
+	 * row, as {@link CellState#ordinal() ordinals}. The block must lie within the
+	 * world.
+	 * <p>
+	 * The default implementation calls {@link #get} for every cell. Array-based
+	 * models should override this to copy directly from their backing storage.
+	 *
+	 * @param dest an array of at least {@code height * width} elements
+	 */
+	default void getRegion(int row, int col, int height, int width, byte[] dest) {
+		for (int r = 0; r < height; r++)
+			for (int c = 0; c < width; c++)
+				dest[r * width + c] = (byte) get(row + r, col + c).ordinal();
+	}
+
+	/**
+	 * Sets the states of a rectangular block of cells from {@code src}, which is
+	 * laid out as in {@link #getRegion}. The block must lie within the world.
+	 *
+	 * @param src an array of at least {@code height * width} elements
+	 */
+	default void setRegion(int row, int col, int height, int width, byte[] src) {
+		var states = CellState.values();
+
+		for (int r = 0; r < height; r++)
+			for (int c = 0; c < width; c++)
+				set(row + r, col + c, states[src[r * width + c]]);
+	}
+
+	/**
+	 * @return the states this model's rules make use of (always including DEAD),
+	 *         so that worlds from other models can be converted (see
+	 *         {@link WorldTransfer})
+	 */
+	default Set<CellState> states() {
+		return EnumSet.of(CellState.DEAD, CellState.ALIVE);
+	}
+
+	/**
+	 * @return the number of bytes needed by {@link #saveExtras} to store any
+	 *         model-specific data beyond the cell states themselves
+	 */
+	default int extrasSize() {
+		return 0;
+	}
+
+	/**
+	 * Writes model-specific data (e.g., per-cell counters) to the buffer, starting
+	 * at its current position. Exactly {@link #extrasSize()} bytes are written.
+	 */
+	default void saveExtras(ByteBuffer dest) {
+	}
+
+	/**
+	 * Reads back data previously written by {@link #saveExtras}. This is called
+	 * after the world has been resized and its cell states restored.
+	 */
+	default void loadExtras(ByteBuffer src) {
+	}
+
 	/**
 	 * Advance the world by one tick. The callback should be invoked for each cell
 	 * whose state was changed from the last tick.
@@ -68,6 +160,31 @@ public interface ILife {
 	 */
 	boolean step(Callback action);
 
+	/**
+	 * Advance the world by up to the given number of ticks, reporting only the net
+	 * change rather than every intermediate state. This stops early if a tick
+	 * doesn't change the world (since no later tick would either).
+	 * <p>
+	 * The default implementation just calls {@link #step} repeatedly. Models that
+	 * can skip the per-cell notifications (or do several ticks at once) should
+	 * override this.
+	 *
+	 * @param changes started over from the current state of the world (with
+	 *                {@link ChangeSet#begin(ILife)}, or {@link ChangeSet#begin()}
+	 *                if the model can tell it what each changed cell was), and
+	 *                left holding the net change
+	 * @return the number of ticks that changed the world
+	 */
+	default int advance(int generations, ChangeSet changes) {
+		changes.begin(this);
+		int advanced = 0;
+
+		while (advanced < generations && step(changes))
+			advanced++;
+
+		return advanced;
+	}
+
 	/**
 	 * Execute an action for all live cells.
 	 *
@@ -80,6 +197,18 @@ public interface ILife {
 	 */
 	long populationCount();
 
+	/**
+	 * Copies the current state of the world into an immutable {@link Generation},
+	 * which other threads can then read at their leisure.
+	 * <p>
+	 * The default implementation copies the world with {@link #getRegion}.
+	 *
+	 * @param generation the number to label the copy with (e.g., the step count)
+	 */
+	default Generation snapshot(long generation) {
+		return Generation.of(this, generation);
+	}
+
 	/**
 	 * @return an optional description of this model
 	 */
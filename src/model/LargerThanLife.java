@@ -0,0 +1,249 @@
+package model;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * "Larger than Life" (see {@link LargerThanLifeRule}), where each cell's
+ * neighbors are all the cells within some radius, e.g., the 120 (or 121,
+ * counting itself) cells within 5 of it for Bosco's rule.
+ * <p>
+ * Rather than adding up each cell's neighborhood, every step builds a summed-
+ * area table of the world, where each entry is the number of live cells above
+ * and to the left of it. The count for any square is then just four entries
+ * of the table, whatever the radius. To wrap around the edges, the table is
+ * built over the world with a margin of the radius on every side, filled in
+ * from the opposite edges (as many times over as needed, if the radius is
+ * larger than the world).
+ * <p>
+ * The rule is set with the {@code lifeapp.ltl} system property (e.g.,
+ * {@code -Dlifeapp.ltl=R5,C0,M1,S34..58,B34..45,NM}), Bosco's rule by default.
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+public class LargerThanLife implements ILife {
+	/** Smaller worlds aren't worth farming out to other threads */
+	private static final long PARALLEL_THRESHOLD = 1 << 18;
+
+	private final LargerThanLifeRule rule;
+
+	private byte[] alive; // 1 or 0 for each cell, row-major
+	private byte[] next;  // scratch for step()
+
+	// Entry (i, j) is the number of live cells in the first i rows and j columns
+	// of the world with its margins, so it has one more row and column than that.
+	private int[] sums;
+	private int stride;      // entries per row of the table
+	private int[] sourceCol; // column of the world that each column of the margins shows
+
+	private int nrows;
+	private int ncols;
+	private final SeededRandom random = new SeededRandom();
+
+	public LargerThanLife() {
+		this(LargerThanLifeRule.parse(System.getProperty("lifeapp.ltl",
+		    LargerThanLifeRule.BOSCO.toString())));
+	}
+
+	public LargerThanLife(LargerThanLifeRule rule) {
+		this.rule = rule;
+	}
+
+	@Override
+	public void resize(int nrows, int ncols) {
+		int radius = rule.radius();
+
+		this.nrows = nrows;
+		this.ncols = ncols;
+		this.alive = new byte[Math.multiplyExact(nrows, ncols)];
+		this.next = new byte[alive.length];
+
+		this.stride = ncols + 2 * radius + 1;
+		this.sums = new int[Math.multiplyExact(nrows + 2 * radius + 1, stride)];
+		this.sourceCol = new int[stride - 1];
+
+		for (int j = 0; j < sourceCol.length; j++)
+			sourceCol[j] = Math.floorMod(j - radius, Math.max(ncols, 1));
+	}
+
+	@Override
+	public int nrows() {
+		return nrows;
+	}
+
+	@Override
+	public int ncols() {
+		return ncols;
+	}
+
+	@Override
+	public long seed() {
+		return random.seed();
+	}
+
+	@Override
+	public void reseed(long seed) {
+		random.reseed(seed);
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(alive, (byte) 0);
+	}
+
+	@Override
+	public void randomize() {
+		randomize(0.5);
+	}
+
+	@Override
+	public void randomize(double density) {
+		Soup.generate(nrows, ncols, density, random, (row, bits, generator) -> {
+			for (int col = 0; col < ncols; col++)
+				alive[row * ncols + col] = (byte) (Soup.isSet(bits, col) ? 1 : 0);
+		});
+	}
+
+	@Override
+	public CellState get(int row, int col) {
+		return (alive[row * ncols + col] != 0) ? CellState.ALIVE : CellState.DEAD;
+	}
+
+	@Override
+	public void set(int row, int col, CellState state) {
+		alive[row * ncols + col] = (byte) (state != CellState.DEAD ? 1 : 0);
+	}
+
+	@Override
+	public void getRegion(int row, int col, int height, int width, byte[] dest) {
+		// The bytes are already DEAD and ALIVE ordinals.
+		for (int r = 0; r < height; r++)
+			System.arraycopy(alive, (row + r) * ncols + col, dest, r * width, width);
+	}
+
+	@Override
+	public void setRegion(int row, int col, int height, int width, byte[] src) {
+		for (int r = 0; r < height; r++)
+			for (int c = 0; c < width; c++)
+				alive[(row + r) * ncols + col + c] = (byte) (src[r * width + c] != 0 ? 1 : 0);
+	}
+
+	@Override
+	public boolean step(Callback action) {
+		boolean parallel = (long) nrows * ncols >= PARALLEL_THRESHOLD;
+
+		buildSums(parallel);
+
+		// Calculate the next states
+		var rows = IntStream.range(0, nrows);
+
+		if (parallel)
+			rows = rows.parallel();
+
+		rows.forEach(this::stepRow);
+
+		var apply = new LifeEvents.Apply();
+		apply.begin();
+		int updates = 0;
+
+		// Make needed updates
+		for (int cell = 0; cell < alive.length; cell++) {
+			if (next[cell] == alive[cell])
+				continue;
+
+			alive[cell] = next[cell];
+			action.invoke(cell / ncols, cell % ncols, (next[cell] != 0) ? CellState.ALIVE : CellState.DEAD);
+			updates++;
+		}
+
+		apply.commit(this, updates);
+
+		return updates > 0;
+	}
+
+	/**
+	 * Fills in the summed-area table: first the running total along each row
+	 * (which rows can do independently), then the running total of those down
+	 * each column.
+	 */
+	private void buildSums(boolean parallel) {
+		int height = nrows + 2 * rule.radius();
+		var rows = IntStream.rangeClosed(1, height);
+
+		if (parallel)
+			rows = rows.parallel();
+
+		rows.forEach(i -> {
+			int from = Math.floorMod(i - 1 - rule.radius(), nrows) * ncols;
+			int to = i * stride;
+			int total = 0;
+
+			for (int j = 1; j < stride; j++) {
+				total += alive[from + sourceCol[j - 1]];
+				sums[to + j] = total;
+			}
+		});
+
+		for (int i = 2; i <= height; i++) {
+			int above = (i - 1) * stride;
+			int here = i * stride;
+
+			for (int j = 1; j < stride; j++)
+				sums[here + j] += sums[above + j];
+		}
+	}
+
+	/**
+	 * Works out the next states of a row from the summed-area table.
+	 */
+	private void stepRow(int row) {
+		int side = 2 * rule.radius() + 1;
+		int top = row * stride;
+		int bottom = (row + side) * stride;
+
+		for (int col = 0; col < ncols; col++) {
+			int cell = row * ncols + col;
+			int count = sums[bottom + col + side] - sums[top + col + side] - sums[bottom + col]
+			    + sums[top + col];
+
+			if (!rule.middle())
+				count -= alive[cell];
+
+			boolean lives;
+
+			if (alive[cell] != 0)
+				lives = count >= rule.survivalMin() && count <= rule.survivalMax();
+			else
+				lives = count >= rule.birthMin() && count <= rule.birthMax();
+
+			next[cell] = (byte) (lives ? 1 : 0);
+		}
+	}
+
+	@Override
+	public void forAllLife(Callback action) {
+		for (int cell = 0; cell < alive.length; cell++)
+			if (alive[cell] != 0)
+				action.invoke(cell / ncols, cell % ncols, CellState.ALIVE);
+	}
+
+	@Override
+	public long populationCount() {
+		long count = 0;
+
+		for (byte state : alive)
+			count += state;
+
+		return count;
+	}
+
+	/**
+	 * @return Description of this model
+	 */
+	public String description() {
+		return "Larger than Life, rule %s.\nEach cell's neighbors are all the cells within %d of it; cells are born with %d-%d live neighbors and survive with %d-%d."
+		    .formatted(rule, rule.radius(), rule.birthMin(), rule.birthMax(), rule.survivalMin(),
+		        rule.survivalMax());
+	}
+}
@@ -0,0 +1,70 @@
+package model;
+
+import java.util.regex.Pattern;
+
+/**
+ * A "Larger than Life" rule, where the neighborhood is the square of cells
+ * within some radius, and cells are born or survive with a range of live
+ * neighbors rather than a list of counts.
+ * <p>
+ * Rules are written as in Golly, e.g., {@code R5,C0,M1,S34..58,B34..45,NM} for
+ * Bosco's rule: radius 5, 2 states, the middle cell counts as a neighbor, and
+ * cells survive with 34 to 58 live neighbors, or are born with 34 to 45. Only
+ * 2 states ({@code C0} or {@code C2}) and the square (Moore) neighborhood
+ * ({@code NM}, which may be left off) are supported.
+ *
+ * @param middle whether a cell counts itself among its neighbors
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+public record LargerThanLifeRule(int radius, boolean middle, int survivalMin, int survivalMax,
+    int birthMin, int birthMax) {
+	// (before the constant below, which needs it to be parsed)
+	private static final Pattern RULE = Pattern.compile(
+	    "R(\\d+),C(\\d+),M([01]),S(\\d+)\\.\\.(\\d+),B(\\d+)\\.\\.(\\d+)(?:,N(\\w))?",
+	    Pattern.CASE_INSENSITIVE);
+
+	/** Bosco's rule, which is known for its "bugs" (gliders, of a sort) */
+	public static final LargerThanLifeRule BOSCO = parse("R5,C0,M1,S34..58,B34..45,NM");
+
+	public LargerThanLifeRule {
+		if (radius < 1 || radius > 500)
+			throw new IllegalArgumentException("Radius must be from 1 to 500: " + radius);
+	}
+
+	/**
+	 * Reads a rule in the form above.
+	 *
+	 * @throws IllegalArgumentException if the rule isn't in that form, or uses
+	 *                                  anything unsupported
+	 */
+	public static LargerThanLifeRule parse(String rule) {
+		var matcher = RULE.matcher(rule.strip());
+
+		if (!matcher.matches())
+			throw new IllegalArgumentException("Not a Larger than Life rule: " + rule);
+
+		int states = Integer.parseInt(matcher.group(2));
+		var neighborhood = matcher.group(8);
+
+		if (states > 2)
+			throw new IllegalArgumentException("Only 2 states are supported: " + rule);
+
+		if (neighborhood != null && !neighborhood.equalsIgnoreCase("M"))
+			throw new IllegalArgumentException("Only the Moore neighborhood is supported: " + rule);
+
+		return new LargerThanLifeRule(Integer.parseInt(matcher.group(1)), matcher.group(3).equals("1"),
+		    Integer.parseInt(matcher.group(4)), Integer.parseInt(matcher.group(5)),
+		    Integer.parseInt(matcher.group(6)), Integer.parseInt(matcher.group(7)));
+	}
+
+	/**
+	 * @return the rule in Golly's form
+	 */
+	@Override
+	public String toString() {
+		return "R%d,C0,M%d,S%d..%d,B%d..%d,NM".formatted(radius, middle ? 1 : 0, survivalMin,
+		    survivalMax, birthMin, birthMax);
+	}
+}
@@ -0,0 +1,254 @@
+package model;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Lenia, a continuous relative of the Game of Life: each cell holds a level
+ * between 0 and 1 rather than being dead or alive, its neighborhood is a
+ * smooth ring of radius {@value #RADIUS}, and each step nudges it up or down
+ * according to how close the weighted sum of its neighborhood is to
+ * {@value #MU}. These are the parameters of "Orbium", a glider-like creature.
+ * <p>
+ * The neighborhood sums are a convolution of the whole world with the ring,
+ * which is done with Fourier transforms (see {@link Convolution}), so the cost
+ * doesn't grow with the size of the ring.
+ * <p>
+ * For the grid, levels are rounded to {@value #SHADES} shades (see
+ * {@link Shaded}), and a cell is reported as changed when its shade does.
+ * Everything else sees shade 0 as DEAD and the rest as ALIVE; setting a cell
+ * ALIVE sets its level to 1. The levels themselves are available from
+ * {@link #getLevels}.
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+public class LeniaLife implements ILife, Shaded {
+	static final int RADIUS = 13;
+	static final double MU = 0.15;    // neighborhood sum at which cells grow fastest
+	static final double SIGMA = 0.015; // how far from MU cells can be and still grow
+	static final double DT = 0.1;     // fraction of the growth applied per step
+
+	static final int SHADES = 64;
+
+	/** Smaller worlds aren't worth farming out to other threads */
+	private static final long PARALLEL_THRESHOLD = 1 << 16;
+
+	private float[] levels;    // row-major, 0 to 1
+	private float[] potential; // neighborhood sums, scratch for step()
+	private byte[] shades;     // levels as last reported
+	private Convolution convolution;
+
+	private int nrows;
+	private int ncols;
+	private final SeededRandom random = new SeededRandom();
+
+	@Override
+	public void resize(int nrows, int ncols) {
+		this.nrows = nrows;
+		this.ncols = ncols;
+		this.levels = new float[Math.multiplyExact(nrows, ncols)];
+		this.potential = new float[levels.length];
+		this.shades = new byte[levels.length];
+		this.convolution = new Convolution(nrows, ncols, kernel(nrows, ncols));
+	}
+
+	/**
+	 * @return the ring, as a plane with its center at (0, 0), adding up to 1
+	 */
+	private static float[] kernel(int nrows, int ncols) {
+		var kernel = new float[nrows * ncols];
+		double total = 0;
+
+		for (int dy = -RADIUS; dy <= RADIUS; dy++)
+			for (int dx = -RADIUS; dx <= RADIUS; dx++) {
+				double r = Math.sqrt(dx * dx + dy * dy) / RADIUS;
+
+				if (r <= 0 || r >= 1)
+					continue;
+
+				// A smooth bump, peaking halfway out
+				double weight = Math.exp(4 - 1 / (r * (1 - r)));
+				kernel[Math.floorMod(dy, nrows) * ncols + Math.floorMod(dx, ncols)] += (float) weight;
+				total += weight;
+			}
+
+		for (int i = 0; i < kernel.length; i++)
+			kernel[i] = (float) (kernel[i] / total);
+
+		return kernel;
+	}
+
+	/**
+	 * @return how much a cell grows (or shrinks, if negative) given the sum of
+	 *         its neighborhood
+	 */
+	private static double growth(double sum) {
+		double d = (sum - MU) / SIGMA;
+		return 2 * Math.exp(-d * d / 2) - 1;
+	}
+
+	private static byte shadeOf(float level) {
+		return (byte) Math.round(level * (SHADES - 1));
+	}
+
+	@Override
+	public int nrows() {
+		return nrows;
+	}
+
+	@Override
+	public int ncols() {
+		return ncols;
+	}
+
+	@Override
+	public long seed() {
+		return random.seed();
+	}
+
+	@Override
+	public void reseed(long seed) {
+		random.reseed(seed);
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(levels, 0);
+		Arrays.fill(shades, (byte) 0);
+	}
+
+	@Override
+	public void randomize() {
+		randomize(0.5);
+	}
+
+	/**
+	 * Gives the chosen cells random levels (the rest are 0).
+	 */
+	@Override
+	public void randomize(double density) {
+		Soup.generate(nrows, ncols, density, random, (row, bits, generator) -> {
+			for (int col = 0; col < ncols; col++) {
+				int cell = row * ncols + col;
+				levels[cell] = Soup.isSet(bits, col) ? generator.nextFloat() : 0;
+				shades[cell] = shadeOf(levels[cell]);
+			}
+		});
+	}
+
+	@Override
+	public CellState get(int row, int col) {
+		return (shades[row * ncols + col] != 0) ? CellState.ALIVE : CellState.DEAD;
+	}
+
+	@Override
+	public void set(int row, int col, CellState state) {
+		int cell = row * ncols + col;
+		levels[cell] = (state != CellState.DEAD) ? 1 : 0;
+		shades[cell] = shadeOf(levels[cell]);
+	}
+
+	@Override
+	public void getRegion(int row, int col, int height, int width, byte[] dest) {
+		byte alive = (byte) CellState.ALIVE.ordinal();
+		byte dead = (byte) CellState.DEAD.ordinal();
+
+		for (int r = 0; r < height; r++)
+			for (int c = 0; c < width; c++)
+				dest[r * width + c] = (shades[(row + r) * ncols + col + c] != 0) ? alive : dead;
+	}
+
+	@Override
+	public void setRegion(int row, int col, int height, int width, byte[] src) {
+		for (int r = 0; r < height; r++)
+			for (int c = 0; c < width; c++)
+				set(row + r, col + c, Regions.STATES[src[r * width + c]]);
+	}
+
+	/**
+	 * Copies the levels (0 to 1) of a region of cells, row by row, into the
+	 * given array, like {@link #getRegion} does with states.
+	 */
+	public void getLevels(int row, int col, int height, int width, float[] dest) {
+		for (int r = 0; r < height; r++)
+			System.arraycopy(levels, (row + r) * ncols + col, dest, r * width, width);
+	}
+
+	@Override
+	public int shades() {
+		return SHADES;
+	}
+
+	@Override
+	public int shade(int row, int col) {
+		return shades[row * ncols + col];
+	}
+
+	@Override
+	public boolean step(Callback action) {
+		convolution.apply(levels, potential);
+
+		// Grow or shrink each cell
+		var rows = IntStream.range(0, nrows);
+
+		if ((long) nrows * ncols >= PARALLEL_THRESHOLD)
+			rows = rows.parallel();
+
+		rows.forEach(row -> {
+			for (int cell = row * ncols; cell < (row + 1) * ncols; cell++) {
+				double level = levels[cell] + DT * growth(potential[cell]);
+				levels[cell] = (float) Math.min(1, Math.max(0, level));
+			}
+		});
+
+		var apply = new LifeEvents.Apply();
+		apply.begin();
+		int updates = 0;
+
+		// Report the cells whose shade changed
+		for (int cell = 0; cell < levels.length; cell++) {
+			byte shade = shadeOf(levels[cell]);
+
+			if (shade == shades[cell])
+				continue;
+
+			shades[cell] = shade;
+			action.invoke(cell / ncols, cell % ncols, (shade != 0) ? CellState.ALIVE : CellState.DEAD);
+			updates++;
+		}
+
+		apply.commit(this, updates);
+
+		return updates > 0;
+	}
+
+	@Override
+	public void forAllLife(Callback action) {
+		for (int cell = 0; cell < shades.length; cell++)
+			if (shades[cell] != 0)
+				action.invoke(cell / ncols, cell % ncols, CellState.ALIVE);
+	}
+
+	/**
+	 * @return the number of cells with a level of at least half a shade
+	 */
+	@Override
+	public long populationCount() {
+		long count = 0;
+
+		for (byte shade : shades)
+			if (shade != 0)
+				count++;
+
+		return count;
+	}
+
+	/**
+	 * @return Description of this model
+	 */
+	public String description() {
+		return "Lenia (Orbium).\nCells have levels from 0 to 1 instead of being dead or alive, and grow or shrink depending on a weighted sum of the cells within %d of them."
+		    .formatted(RADIUS);
+	}
+}
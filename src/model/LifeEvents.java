@@ -0,0 +1,104 @@
+package model;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder events for the models, so that a session recorded with
+ * {@code -XX:StartFlightRecording} can be lined up against GC and rendering in
+ * JDK Mission Control.
+ * <p>
+ * Usage follows the usual pattern for timed events, e.g.,
+ *
+ * <pre>
+ * var event = new LifeEvents.Step();
+ * event.begin();
+ * boolean change = model.step(...);
+ * event.commit(model, changedCells);
+ * </pre>
+ *
+ * When recording is off, this costs next to nothing.
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+public final class LifeEvents {
+	private LifeEvents() {
+	}
+
+	/**
+	 * Fields common to all model events.
+	 */
+	@Category({ "Game of Life", "Model" })
+	@StackTrace(false)
+	abstract static class ModelEvent extends Event {
+		@Label("Model")
+		String model;
+
+		@Label("Rows")
+		int rows;
+
+		@Label("Columns")
+		int cols;
+
+		@Label("Cells")
+		@Description("Number of cells affected")
+		long cells;
+
+		/**
+		 * Ends the event and, if it's being recorded, fills in the fields and
+		 * commits it.
+		 */
+		public void commit(ILife life, long cells) {
+			end();
+
+			if (shouldCommit()) {
+				this.model = life.getClass().getSimpleName();
+				this.rows = life.nrows();
+				this.cols = life.ncols();
+				this.cells = cells;
+				commit();
+			}
+		}
+	}
+
+	@Name("lifeapp.Step")
+	@Label("Step")
+	@Description("One generation, including any work done by the callback; cells is the number changed")
+	public static final class Step extends ModelEvent {
+	}
+
+	@Name("lifeapp.Advance")
+	@Label("Advance")
+	@Description("Several generations at once; cells is the net number changed")
+	public static final class Advance extends ModelEvent {
+	}
+
+	@Name("lifeapp.Apply")
+	@Label("Apply Updates")
+	@Description("The phase of a step that applies the computed updates; cells is the number of updates")
+	public static final class Apply extends ModelEvent {
+	}
+
+	@Name("lifeapp.Resize")
+	@Label("Resize")
+	@Description("Resizing (and clearing) the world; cells is the new size")
+	public static final class Resize extends ModelEvent {
+	}
+
+	@Name("lifeapp.Transfer")
+	@Label("Transfer")
+	@Description("Copying the world over from another model; cells is its size")
+	public static final class Transfer extends ModelEvent {
+	}
+
+	@Name("lifeapp.Randomize")
+	@Label("Randomize")
+	@Description("Randomizing the world; cells is its size")
+	public static final class Randomize extends ModelEvent {
+	}
+}
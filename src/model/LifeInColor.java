@@ -1,125 +1,120 @@
 package model;
 
 import java.util.Arrays;
-
-import edu.princeton.cs.algs4.Graph;
-import edu.princeton.cs.algs4.Queue;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.random.RandomGenerator;
+import java.util.stream.IntStream;
 
 /**
- * A graph-based implementation of Conway's Game of Life (classic ruleset
- * B3/S23) but with 3 games stacked on top of each other (one for each color).
- * 
+ * An implementation of Conway's Game of Life (classic ruleset B3/S23) but with
+ * 3 games stacked on top of each other (one for each color).
+ * <p>
+ * Each species only counts its own kind as neighbors. A live cell survives
+ * with 2 or 3 neighbors of its species, and a dead cell is born into whichever
+ * species it has exactly 3 neighbors of (if there are two, the first of GREEN,
+ * RED, BLUE wins). Plain ALIVE cells, e.g., from clicking on the grid, are a
+ * fourth species of their own, coming before the others.
+ * <p>
+ * Each species is stored as a separate plane of bits, 64 cells to a
+ * {@code long}, so the neighbors of 64 cells are counted at once with bitwise
+ * adders, and the rules are applied with masks. For large worlds, the planes
+ * are counted on separate threads.
+ *
  * @author Tommy Collier
  * @author Paul Nguyen
  */
 public class LifeInColor implements ILife {
-	private Graph world;
-	private CellState[] cells; // row-col indexed
-	private int nrows;
-	private int ncols;
 	private static final CellState COLOR_1 = CellState.RED;
 	private static final CellState COLOR_2 = CellState.GREEN;
 	private static final CellState COLOR_3 = CellState.BLUE;
 
+	/** One plane for each non-dead state, by ordinal - 1 */
+	private static final int PLANES = CellState.values().length - 1;
+
+	/** Smaller worlds aren't worth farming out to other threads */
+	private static final long PARALLEL_THRESHOLD = 1 << 18;
+
+	private int nrows;
+	private int ncols;
+	private int words;    // longs per row
+	private long lastMask; // valid bits of the last word of a row
+
+	// Bit c & 63 of word row * words + (c >> 6) is set if the cell is of that
+	// species.
+	private long[][] planes;
+	private long[][] nextPlanes;
+	private long[][] threes;      // exactly 3 neighbors of the plane's species
+	private long[][] twosOrThrees; // 2 or 3 neighbors of the plane's species
+
+	private final SeededRandom random = new SeededRandom();
+
 	@Override
 	public void resize(int nrows, int ncols) {
-		this.world = new Graph(nrows * ncols);
-		this.cells = new CellState[nrows * ncols];
 		this.nrows = nrows;
 		this.ncols = ncols;
-
-		clear();
-
-		// Initialize edges/neighbors
-		for (int current = 0; current < cells.length; current++)
-			initializeNeighbors(current);
-	}
-
-	/**
-	 * Returns index of cell based on row and col
-	 *
-	 * @param row
-	 * @param col
-	 * @return int cell index
-	 */
-	private int convertToIndex(int row, int col) {
-		return row * ncols + col;
+		this.words = (ncols + 63) >>> 6;
+		this.lastMask = (ncols % 64 == 0) ? -1L : (1L << ncols) - 1;
+
+		int size = Math.multiplyExact(nrows, words);
+		this.planes = new long[PLANES][size];
+		this.nextPlanes = new long[PLANES][size];
+		this.threes = new long[PLANES][size];
+		this.twosOrThrees = new long[PLANES][size];
 	}
 
-	/**
-	 * Returns cell's row based on index
-	 *
-	 * @param index
-	 * @return int cell's row
-	 */
-	private int convertToRow(int index) {
-		return index / ncols;
+	@Override
+	public int nrows() {
+		return nrows;
 	}
 
-	/**
-	 * Returns cell's col based on index
-	 *
-	 * @param index
-	 * @return int cell's col
-	 */
-	private int convertToCol(int index) {
-		return index % ncols;
+	@Override
+	public int ncols() {
+		return ncols;
 	}
 
-	/**
-	 * Adds neighbor edges to given cell.
-	 *
-	 * @param index
-	 */
-	private void initializeNeighbors(int index) {
-		int row = convertToRow(index);
-		int col = convertToCol(index);
-
-		int[] rowOffsets = { (row - 1 + nrows) % nrows, row, (row + 1 + nrows) % nrows };
-		int[] colOffsets = { (col - 1 + ncols) % ncols, col, (col + 1 + ncols) % ncols };
-
-		for (int r : rowOffsets)
-			for (int c : colOffsets)
-				if (r != row || c != col) { // Disclude current cell
-					int neighbor = convertToIndex(r, c);
-					if (hasEdge(index, neighbor) != true)
-						world.addEdge(index, neighbor);
-				}
+	@Override
+	public long seed() {
+		return random.seed();
 	}
 
-	/**
-	 * Checks if vertex already linked to neighbor.
-	 *
-	 * @param index
-	 * @param neighbor
-	 * @return boolean true/false linked to neighbor
-	 */
-	private boolean hasEdge(int index, int neighbor) {
-		for (int n : world.adj(index))
-			if (n == neighbor)
-				return true;
-		return false;
+	@Override
+	public void reseed(long seed) {
+		random.reseed(seed);
 	}
 
 	@Override
 	public void clear() {
-		Arrays.fill(cells, CellState.DEAD);
+		for (var plane : planes)
+			Arrays.fill(plane, 0);
 	}
 
 	@Override
 	public void randomize() {
-		for (int current = 0; current < cells.length; current++)
-			if (RANDOM.nextBoolean() && RANDOM.nextBoolean())
-				cells[current] = CellState.DEAD;
-			else
-				cells[current] = randomSpecies();
+		randomize(0.75);
+	}
+
+	@Override
+	public void randomize(double density) {
+		Soup.generate(nrows, ncols, density, random, (row, bits, generator) -> {
+			int offset = row * words;
+
+			for (var plane : planes)
+				Arrays.fill(plane, offset, offset + words, 0);
+
+			for (int col = 0; col < ncols; col++)
+				if (Soup.isSet(bits, col)) {
+					var plane = planes[randomSpecies(generator).ordinal() - 1];
+					plane[offset + (col >>> 6)] |= 1L << col;
+				}
+		});
 	}
 
 	/**
 	 * @return random species CellState (between RED, BLUE, and GREEN).
 	 */
-	private CellState randomSpecies() {
-		int randomInt = RANDOM.nextInt(3);
+	private static CellState randomSpecies(RandomGenerator random) {
+		int randomInt = random.nextInt(3);
 		if (randomInt == 0)
 			return COLOR_1;
 		else if (randomInt == 1)
@@ -128,86 +123,240 @@ public class LifeInColor implements ILife {
 			return COLOR_3;
 	}
 
+	@Override
+	public Set<CellState> states() {
+		return EnumSet.of(CellState.DEAD, CellState.ALIVE, COLOR_1, COLOR_2, COLOR_3);
+	}
+
 	@Override
 	public CellState get(int row, int col) {
-		return cells[convertToIndex(row, col)];
+		int word = row * words + (col >>> 6);
+
+		for (int p = 0; p < PLANES; p++)
+			if ((planes[p][word] & (1L << col)) != 0)
+				return Regions.STATES[p + 1];
+
+		return CellState.DEAD;
 	}
 
 	@Override
 	public void set(int row, int col, CellState state) {
-		cells[convertToIndex(row, col)] = state;
+		int word = row * words + (col >>> 6);
+
+		for (var plane : planes)
+			plane[word] &= ~(1L << col);
+
+		if (state != CellState.DEAD)
+			planes[state.ordinal() - 1][word] |= 1L << col;
 	}
 
 	@Override
-	public boolean step(Callback action) {
-		Queue<Cell> queue = new Queue<>();
-
-		// Calculate needed updates
-		for (int current = 0; current < cells.length; current++) {
-			CellState species = cells[current];
-
-			// If dead cell, set species
-			if (species == CellState.DEAD) {
-				for (int neighbor : world.adj(current))
-					if (cells[neighbor] != CellState.DEAD)
-						species = cells[neighbor];
-				if (species == CellState.DEAD) // If still dead, set as random species.
-					species = randomSpecies();
+	public void getRegion(int row, int col, int height, int width, byte[] dest) {
+		Arrays.fill(dest, 0, height * width, (byte) CellState.DEAD.ordinal());
+
+		for (int p = 0; p < PLANES; p++) {
+			long[] plane = planes[p];
+
+			for (int r = 0; r < height; r++) {
+				int offset = (row + r) * words;
+
+				for (int c = 0; c < width; c++)
+					if ((plane[offset + ((col + c) >>> 6)] & (1L << (col + c))) != 0)
+						dest[r * width + c] = (byte) (p + 1);
 			}
+		}
+	}
+
+	@Override
+	public boolean step(Callback action) {
+		// Count each species' neighbors
+		var species = IntStream.range(0, PLANES);
+
+		if ((long) nrows * ncols >= PARALLEL_THRESHOLD)
+			species = species.parallel();
+
+		species.forEach(this::countNeighbors);
 
-			// Count amount of alive neighbors
-			int aliveNeighbors = 0;
-			for (int neighbor : world.adj(current))
-				if (cells[neighbor] == species)
-					aliveNeighbors++;
+		// Apply the rules, a word at a time
+		for (int word = 0; word < nrows * words; word++) {
+			long alive = 0;
+			for (var plane : planes)
+				alive |= plane[word];
 
-			// Record needed updates
-			int row = convertToRow(current);
-			int col = convertToCol(current);
+			long dead = ~alive & ((word % words == words - 1) ? lastMask : -1L);
+			long born = 0; // so far, so that only one species is born into a cell
 
-			if (cells[current] == species) {
-				if (aliveNeighbors < 2 || aliveNeighbors > 3) // Alive cells only stay alive if
-				                                              // between 2-3 neighbors.
-					queue.enqueue(new Cell(row, col, CellState.DEAD));
+			for (int p = 0; p < PLANES; p++) {
+				long births = dead & threes[p][word] & ~born;
+				born |= births;
+				nextPlanes[p][word] = (planes[p][word] & twosOrThrees[p][word]) | births;
 			}
-			else { // if (cells[i].state() == CellState.DEAD)
-				if (aliveNeighbors == 3) // Dead cell with 3 neighbors becomes alive.
-					queue.enqueue(new Cell(row, col, species));
+		}
+
+		var apply = new LifeEvents.Apply();
+		apply.begin();
+		int updates = 0;
+
+		// Report the cells that changed, in row-major order
+		for (int word = 0; word < nrows * words; word++) {
+			long changed = 0;
+			for (int p = 0; p < PLANES; p++)
+				changed |= planes[p][word] ^ nextPlanes[p][word];
+
+			int row = word / words;
+			int colBase = (word % words) << 6;
+
+			for (; changed != 0; changed &= changed - 1) {
+				int bit = Long.numberOfTrailingZeros(changed);
+				var state = CellState.DEAD;
+
+				for (int p = 0; p < PLANES; p++)
+					if ((nextPlanes[p][word] & (1L << bit)) != 0)
+						state = Regions.STATES[p + 1];
+
+				action.invoke(row, colBase + bit, state);
+				updates++;
 			}
 		}
 
-		boolean worldChanged = false;
+		var swap = planes;
+		planes = nextPlanes;
+		nextPlanes = swap;
 
-		// Make needed updates (done afterwards to prevent invalid updates)
-		while (!queue.isEmpty()) {
-			Cell cell = queue.dequeue();
+		apply.commit(this, updates);
 
-			// Invoke callback if a new state differs from old state
-			if (cell.state() != get(cell.row(), cell.col())) {
-				action.invoke(cell.row(), cell.col(), cell.state());
-				worldChanged = true;
+		return updates > 0;
+	}
+
+	/**
+	 * Fills in {@code threes} and {@code twosOrThrees} for the given plane. The
+	 * eight neighbors of every cell in a word are added up with bitwise adders,
+	 * down to the count mod 4 in two bits, plus a bit for whether it has reached 4
+	 * (which is all the rules need to know).
+	 */
+	private void countNeighbors(int p) {
+		long[] plane = planes[p];
+		long[] three = threes[p];
+		long[] twoOrThree = twosOrThrees[p];
+
+		// The rows above, at and below the current one, shifted so that each bit
+		// lines up with its neighbor to the west or east. Each row is shifted once,
+		// as it comes in below, and the buffers roll up from there.
+		var westAbove = new long[words];
+		var eastAbove = new long[words];
+		var westHere = new long[words];
+		var eastHere = new long[words];
+		var westBelow = new long[words];
+		var eastBelow = new long[words];
+
+		shiftWest(plane, (nrows - 1) * words, westAbove);
+		shiftEast(plane, (nrows - 1) * words, eastAbove);
+		shiftWest(plane, 0, westHere);
+		shiftEast(plane, 0, eastHere);
+
+		for (int row = 0; row < nrows; row++) {
+			int above = ((row + nrows - 1) % nrows) * words;
+			int here = row * words;
+			int below = ((row + 1) % nrows) * words;
+
+			shiftWest(plane, below, westBelow);
+			shiftEast(plane, below, eastBelow);
+
+			for (int w = 0; w < words; w++) {
+				// Add the first three, the next three and the last two neighbors, then
+				// the three units that leaves. The rest are four carries worth 2 each.
+				long a = westAbove[w], b = plane[above + w], c = eastAbove[w];
+				long sum0 = a ^ b ^ c;
+				long carry0 = (a & b) | (c & (a ^ b));
+
+				a = westHere[w];
+				b = eastHere[w];
+				c = westBelow[w];
+				long sum1 = a ^ b ^ c;
+				long carry1 = (a & b) | (c & (a ^ b));
+
+				a = plane[below + w];
+				b = eastBelow[w];
+				long sum2 = a ^ b;
+				long carry2 = a & b;
+
+				long ones = sum0 ^ sum1 ^ sum2;
+				long carry3 = (sum0 & sum1) | (sum2 & (sum0 ^ sum1));
+
+				long twos = carry0 ^ carry1 ^ carry2 ^ carry3;
+				long fours = (carry0 & carry1) | (carry2 & carry3) | ((carry0 ^ carry1) & (carry2 ^ carry3));
+
+				three[here + w] = ~fours & twos & ones;
+				twoOrThree[here + w] = ~fours & twos;
 			}
 
-			set(cell.row(), cell.col(), cell.state());
+			// Roll the rows up: this one is above the next, and the one below it is
+			// next, so the old row above is free for the row after that.
+			var west = westAbove;
+			var east = eastAbove;
+			westAbove = westHere;
+			eastAbove = eastHere;
+			westHere = westBelow;
+			eastHere = eastBelow;
+			westBelow = west;
+			eastBelow = east;
+		}
+	}
+
+	/**
+	 * Copies a row so that each column holds the bit of the column to its west
+	 * (wrapping around).
+	 */
+	private void shiftWest(long[] plane, int offset, long[] dest) {
+		int last = words - 1;
+		long carry = (plane[offset + last] >>> ((ncols - 1) & 63)) & 1;
+
+		for (int w = 0; w < words; w++) {
+			long word = plane[offset + w];
+			dest[w] = (word << 1) | carry;
+			carry = word >>> 63;
 		}
 
-		return worldChanged;
+		dest[last] &= lastMask;
+	}
+
+	/**
+	 * Copies a row so that each column holds the bit of the column to its east
+	 * (wrapping around).
+	 */
+	private void shiftEast(long[] plane, int offset, long[] dest) {
+		int last = words - 1;
+
+		for (int w = 0; w < last; w++)
+			dest[w] = (plane[offset + w] >>> 1) | (plane[offset + w + 1] << 63);
+
+		dest[last] = (plane[offset + last] >>> 1) | ((plane[offset] & 1) << ((ncols - 1) & 63));
 	}
 
 	@Override
 	public void forAllLife(Callback action) {
-		for (int current = 0; current < cells.length; current++)
-			if (cells[current] != CellState.DEAD)
-				action.invoke(convertToRow(current), convertToCol(current), cells[current]);
+		for (int word = 0; word < nrows * words; word++) {
+			long alive = 0;
+			for (var plane : planes)
+				alive |= plane[word];
+
+			int row = word / words;
+			int colBase = (word % words) << 6;
+
+			for (; alive != 0; alive &= alive - 1) {
+				int bit = Long.numberOfTrailingZeros(alive);
+				action.invoke(row, colBase + bit, get(row, colBase + bit));
+			}
+		}
 	}
 
 	@Override
 	public long populationCount() {
 		long count = 0;
 
-		for (var state : cells)
-			if (state != CellState.DEAD)
-				count++;
+		for (var plane : planes)
+			for (long word : plane)
+				count += Long.bitCount(word);
 
 		return count;
 	}
@@ -218,4 +367,4 @@ public class LifeInColor implements ILife {
 	public String description() {
 		return "Life In Color.\n3 games of the Game of Life stacked on top of each other.";
 	}
-}
\ No newline at end of file
+}
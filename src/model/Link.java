@@ -0,0 +1,98 @@
+package model;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * A (blocking) connection between {@link PartitionedLife} and one of its
+ * {@link PartitionWorker}s, which sends ints and runs of bytes through direct
+ * buffers. Writes are buffered until {@link #flush}.
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+final class Link implements Closeable {
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final SocketChannel channel;
+	private final ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_SIZE);
+	private final ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+	Link(SocketChannel channel) throws IOException {
+		this.channel = channel;
+		channel.configureBlocking(true);
+		channel.socket().setTcpNoDelay(true);
+		in.flip(); // start out empty
+	}
+
+	void writeInt(int value) throws IOException {
+		if (out.remaining() < Integer.BYTES)
+			drain();
+
+		out.putInt(value);
+	}
+
+	void write(byte[] src, int offset, int length) throws IOException {
+		while (length > 0) {
+			if (!out.hasRemaining())
+				drain();
+
+			int n = Math.min(length, out.remaining());
+			out.put(src, offset, n);
+			offset += n;
+			length -= n;
+		}
+	}
+
+	void flush() throws IOException {
+		drain();
+	}
+
+	private void drain() throws IOException {
+		out.flip();
+
+		while (out.hasRemaining())
+			channel.write(out);
+
+		out.clear();
+	}
+
+	int readInt() throws IOException {
+		fill(Integer.BYTES);
+		return in.getInt();
+	}
+
+	void read(byte[] dest, int offset, int length) throws IOException {
+		while (length > 0) {
+			fill(1);
+			int n = Math.min(length, in.remaining());
+			in.get(dest, offset, n);
+			offset += n;
+			length -= n;
+		}
+	}
+
+	/**
+	 * Reads until at least the given number of bytes are buffered.
+	 */
+	private void fill(int bytes) throws IOException {
+		if (in.remaining() >= bytes)
+			return;
+
+		in.compact();
+
+		while (in.position() < bytes)
+			if (channel.read(in) < 0)
+				throw new EOFException("Connection closed");
+
+		in.flip();
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
@@ -0,0 +1,117 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * An undirected graph in compressed sparse row form: the neighbors of vertex
+ * {@code v} are {@code targets[offsets[v]]} up to (but not including)
+ * {@code targets[offsets[v + 1]]}.
+ * <p>
+ * Unlike an algs4 {@code Graph}, which keeps a linked bag per vertex, this is
+ * just two int arrays, so a network with millions of vertices takes a few bytes
+ * per edge and is scanned sequentially. Each edge is stored once in each
+ * direction.
+ * <p>
+ * Optionally, each vertex has coordinates, which are only used to lay the
+ * vertices out for display.
+ *
+ * @see NetworkLife
+ * @see model.io.NetworkReader
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+public final class Network {
+	final int[] offsets; // one more than the number of vertices
+	final int[] targets;
+
+	// display coordinates of each vertex (NaN if unknown), or null if none
+	final float[] xs;
+	final float[] ys;
+
+	/**
+	 * @param offsets where each vertex's neighbors start in {@code targets}, plus
+	 *                the total at the end
+	 * @param targets the neighbors of every vertex, one after another
+	 */
+	public Network(int[] offsets, int[] targets) {
+		this(offsets, targets, null, null);
+	}
+
+	private Network(int[] offsets, int[] targets, float[] xs, float[] ys) {
+		if (offsets.length == 0 || offsets[offsets.length - 1] != targets.length)
+			throw new IllegalArgumentException("Offsets don't match the targets");
+
+		this.offsets = offsets;
+		this.targets = targets;
+		this.xs = xs;
+		this.ys = ys;
+	}
+
+	/**
+	 * @return this network with the given display coordinates, one per vertex
+	 *         (NaN for vertices without any)
+	 */
+	public Network withCoordinates(float[] xs, float[] ys) {
+		if (xs.length != vertices() || ys.length != vertices())
+			throw new IllegalArgumentException("Need coordinates for %d vertices".formatted(vertices()));
+
+		return new Network(offsets, targets, xs, ys);
+	}
+
+	public int vertices() {
+		return offsets.length - 1;
+	}
+
+	/**
+	 * @return the number of (undirected) edges
+	 */
+	public long edges() {
+		return targets.length / 2;
+	}
+
+	public int degree(int vertex) {
+		return offsets[vertex + 1] - offsets[vertex];
+	}
+
+	public boolean hasCoordinates() {
+		return xs != null;
+	}
+
+	/**
+	 * @return the 8-neighbor torus that the grid models use, with vertices
+	 *         numbered row by row
+	 */
+	static Network torus(int nrows, int ncols) {
+		int vertices = Math.multiplyExact(nrows, ncols);
+		var offsets = new int[vertices + 1];
+		var targets = new int[Math.multiplyExact(vertices, 8)];
+		int edge = 0;
+
+		for (int row = 0; row < nrows; row++)
+			for (int col = 0; col < ncols; col++) {
+				offsets[row * ncols + col] = edge;
+
+				for (int dr = -1; dr <= 1; dr++)
+					for (int dc = -1; dc <= 1; dc++) {
+						int r = Math.floorMod(row + dr, nrows);
+						int c = Math.floorMod(col + dc, ncols);
+
+						// Small worlds wrap onto themselves, like GraphLife's do.
+						if ((r != row || c != col) && !contains(targets, offsets[row * ncols + col],
+						    edge, r * ncols + c))
+							targets[edge++] = r * ncols + c;
+					}
+			}
+
+		offsets[vertices] = edge;
+		return new Network(offsets, Arrays.copyOf(targets, edge));
+	}
+
+	private static boolean contains(int[] targets, int from, int to, int vertex) {
+		for (int i = from; i < to; i++)
+			if (targets[i] == vertex)
+				return true;
+
+		return false;
+	}
+}
@@ -0,0 +1,303 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Life on an arbitrary network, where each vertex is a cell and its neighbors
+ * are whatever it's connected to.
+ * <p>
+ * Since vertices can have any number of neighbors, the rules are in terms of
+ * the fraction of neighbors alive rather than the count: a dead vertex is born
+ * if between {@value #BIRTH_MIN} and {@value #BIRTH_MAX} of its neighbors are
+ * alive, and a live vertex survives between {@value #SURVIVAL_MIN} and
+ * {@value #SURVIVAL_MAX} (including the minimum, but not the maximum). With 8
+ * neighbors, that's exactly B3/S23.
+ * <p>
+ * Until a network is loaded (see {@link model.io.NetworkReader}), this runs on
+ * the same 8-neighbor torus as {@link GraphLife}. Otherwise, each vertex is
+ * shown in the cell nearest its coordinates (scaled to fit the world), or if
+ * the network has none, the vertices are spread out over the world in order.
+ * A cell showing several vertices is alive if any of them is, and setting it
+ * sets all of them.
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+public class NetworkLife implements ILife {
+	static final double BIRTH_MIN = 2.5 / 8;
+	static final double BIRTH_MAX = 3.5 / 8;
+	static final double SURVIVAL_MIN = 1.5 / 8;
+	static final double SURVIVAL_MAX = 3.5 / 8;
+
+	/** Number of vertices per row of a loaded network's soup (see {@link Soup#generate}) */
+	private static final int SOUP_WIDTH = 1 << 12;
+
+	private final boolean loaded; // otherwise, the network follows the world's size
+	private Network network;
+	private byte[] alive; // 1 or 0 for each vertex
+	private byte[] next;  // scratch for step()
+	private long population;
+
+	// Which cell each vertex is shown in, and the vertices in each cell (laid out
+	// like the network's neighbors)
+	private int[] cellOf;
+	private int[] cellOffsets;
+	private int[] cellVertices;
+	private int[] liveCounts; // number of live vertices in each cell
+
+	private int nrows;
+	private int ncols;
+	private final SeededRandom random = new SeededRandom();
+
+	public NetworkLife() {
+		this.loaded = false;
+	}
+
+	public NetworkLife(Network network) {
+		this.loaded = true;
+		this.network = network;
+	}
+
+	@Override
+	public void resize(int nrows, int ncols) {
+		this.nrows = nrows;
+		this.ncols = ncols;
+
+		if (!loaded)
+			network = Network.torus(nrows, ncols);
+
+		alive = new byte[network.vertices()];
+		next = new byte[network.vertices()];
+		population = 0;
+		layOut();
+	}
+
+	/**
+	 * Decides which cell shows each vertex.
+	 */
+	private void layOut() {
+		int vertices = network.vertices();
+		int cells = Math.multiplyExact(nrows, ncols);
+		cellOf = new int[vertices];
+
+		if (!loaded || !network.hasCoordinates()) {
+			for (int v = 0; v < vertices; v++)
+				cellOf[v] = (int) ((long) v * cells / vertices);
+		}
+		else {
+			float minX = Float.POSITIVE_INFINITY, maxX = Float.NEGATIVE_INFINITY;
+			float minY = Float.POSITIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+
+			for (int v = 0; v < vertices; v++)
+				if (!Float.isNaN(network.xs[v]) && !Float.isNaN(network.ys[v])) {
+					minX = Math.min(minX, network.xs[v]);
+					maxX = Math.max(maxX, network.xs[v]);
+					minY = Math.min(minY, network.ys[v]);
+					maxY = Math.max(maxY, network.ys[v]);
+				}
+
+			double scaleX = (ncols - 1) / Math.max(maxX - minX, Float.MIN_NORMAL);
+			double scaleY = (nrows - 1) / Math.max(maxY - minY, Float.MIN_NORMAL);
+
+			for (int v = 0; v < vertices; v++) {
+				if (Float.isNaN(network.xs[v]) || Float.isNaN(network.ys[v]))
+					cellOf[v] = (int) ((long) v * cells / vertices);
+				else {
+					int row = (int) Math.round((network.ys[v] - minY) * scaleY);
+					int col = (int) Math.round((network.xs[v] - minX) * scaleX);
+					cellOf[v] = row * ncols + col;
+				}
+			}
+		}
+
+		// Group the vertices by cell.
+		cellOffsets = new int[cells + 1];
+		cellVertices = new int[vertices];
+		liveCounts = new int[cells];
+
+		for (int v = 0; v < vertices; v++)
+			cellOffsets[cellOf[v] + 1]++;
+
+		for (int cell = 0; cell < cells; cell++)
+			cellOffsets[cell + 1] += cellOffsets[cell];
+
+		var free = Arrays.copyOf(cellOffsets, cells);
+
+		for (int v = 0; v < vertices; v++)
+			cellVertices[free[cellOf[v]]++] = v;
+	}
+
+	@Override
+	public int nrows() {
+		return nrows;
+	}
+
+	@Override
+	public int ncols() {
+		return ncols;
+	}
+
+	@Override
+	public long seed() {
+		return random.seed();
+	}
+
+	@Override
+	public void reseed(long seed) {
+		random.reseed(seed);
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(alive, (byte) 0);
+		Arrays.fill(liveCounts, 0);
+		population = 0;
+	}
+
+	@Override
+	public void randomize() {
+		randomize(0.5);
+	}
+
+	@Override
+	public void randomize(double density) {
+		clear();
+
+		// The torus numbers its vertices row by row, so its soup is drawn over the
+		// world's rows, like the grid models' (and the same seed gives the same soup).
+		int vertices = alive.length;
+		int width = loaded ? SOUP_WIDTH : ncols;
+		int height = loaded ? Math.ceilDiv(vertices, SOUP_WIDTH) : nrows;
+
+		Soup.generate(height, width, density, random, (row, bits, generator) -> {
+			int first = row * width;
+
+			for (int i = 0; i < width && first + i < vertices; i++)
+				if (Soup.isSet(bits, i))
+					alive[first + i] = 1;
+		});
+
+		// Count afterwards, since the rows may have been filled in parallel.
+		for (int v = 0; v < vertices; v++)
+			if (alive[v] != 0) {
+				liveCounts[cellOf[v]]++;
+				population++;
+			}
+	}
+
+	@Override
+	public CellState get(int row, int col) {
+		return (liveCounts[row * ncols + col] > 0) ? CellState.ALIVE : CellState.DEAD;
+	}
+
+	@Override
+	public void set(int row, int col, CellState state) {
+		int cell = row * ncols + col;
+		byte value = (byte) (state != CellState.DEAD ? 1 : 0);
+
+		for (int i = cellOffsets[cell]; i < cellOffsets[cell + 1]; i++) {
+			int v = cellVertices[i];
+
+			if (alive[v] != value) {
+				alive[v] = value;
+				liveCounts[cell] += (value != 0) ? 1 : -1;
+				population += (value != 0) ? 1 : -1;
+			}
+		}
+	}
+
+	@Override
+	public void getRegion(int row, int col, int height, int width, byte[] dest) {
+		byte live = (byte) CellState.ALIVE.ordinal();
+		byte dead = (byte) CellState.DEAD.ordinal();
+
+		for (int r = 0; r < height; r++) {
+			int from = (row + r) * ncols + col;
+
+			for (int c = 0; c < width; c++)
+				dest[r * width + c] = (liveCounts[from + c] > 0) ? live : dead;
+		}
+	}
+
+	@Override
+	public boolean step(Callback action) {
+		int[] offsets = network.offsets;
+		int[] targets = network.targets;
+		int vertices = alive.length;
+
+		// Calculate needed updates
+		int updates = 0;
+
+		for (int v = 0; v < vertices; v++) {
+			int live = 0;
+			for (int i = offsets[v]; i < offsets[v + 1]; i++)
+				live += alive[targets[i]];
+
+			int degree = offsets[v + 1] - offsets[v];
+			boolean lives;
+
+			if (alive[v] != 0)
+				lives = live >= SURVIVAL_MIN * degree && live < SURVIVAL_MAX * degree;
+			else
+				lives = live >= BIRTH_MIN * degree && live < BIRTH_MAX * degree && degree > 0;
+
+			next[v] = (byte) (lives ? 1 : 0);
+
+			if (next[v] != alive[v])
+				updates++;
+		}
+
+		var apply = new LifeEvents.Apply();
+		apply.begin();
+
+		// Make needed updates, only reporting cells whose appearance changed
+		for (int v = 0, remaining = updates; remaining > 0; v++) {
+			if (next[v] == alive[v])
+				continue;
+
+			int cell = cellOf[v];
+			alive[v] = next[v];
+			remaining--;
+
+			if (alive[v] != 0) {
+				population++;
+
+				if (liveCounts[cell]++ == 0)
+					action.invoke(cell / ncols, cell % ncols, CellState.ALIVE);
+			}
+			else {
+				population--;
+
+				if (--liveCounts[cell] == 0)
+					action.invoke(cell / ncols, cell % ncols, CellState.DEAD);
+			}
+		}
+
+		apply.commit(this, updates);
+
+		return updates > 0;
+	}
+
+	@Override
+	public void forAllLife(Callback action) {
+		for (int cell = 0; cell < liveCounts.length; cell++)
+			if (liveCounts[cell] > 0)
+				action.invoke(cell / ncols, cell % ncols, CellState.ALIVE);
+	}
+
+	@Override
+	public long populationCount() {
+		return population;
+	}
+
+	/**
+	 * @return Description of this model
+	 */
+	public String description() {
+		if (!loaded)
+			return "Life on a network, where each cell is a vertex. Import an edge list to load one; until then, this is the usual torus.";
+
+		return "Life on a network of %,d vertices and %,d edges, born with 3/8 of neighbors alive and surviving with 2/8-3/8."
+		    .formatted(network.vertices(), network.edges());
+	}
+}
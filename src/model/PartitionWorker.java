@@ -0,0 +1,255 @@
+package model;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+
+/**
+ * A worker process for {@link PartitionedLife}, which owns a band of rows of
+ * the world and steps it with the classic rules (B3/S23).
+ * <p>
+ * Each worker is connected to the coordinator, and to the workers owning the
+ * bands above and below it (wrapping around, so that with a single worker, it
+ * is connected to itself). Before each generation, it sends its top and bottom
+ * rows to those neighbors and receives theirs in return, as the "halo" rows
+ * just outside its band.
+ * <p>
+ * Usage (started by the coordinator):
+ *
+ * <pre>
+ * PartitionWorker COORDINATOR_PORT INDEX
+ * </pre>
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+public final class PartitionWorker {
+	// Commands from the coordinator
+	static final int RESIZE = 1; // ncols, rows: start over with an empty band
+	static final int ROWS = 2;   // first, count, cells: overwrite rows of the band
+	static final int STEP = 3;   // generations: step, then report the net change
+	static final int QUIT = 4;
+
+	private final Link coordinator;
+	private final SocketChannel previous; // owner of the band above
+	private final SocketChannel next;     // owner of the band below
+	private final Selector selector;
+	private final SelectionKey previousKey;
+	private final SelectionKey nextKey;
+
+	// Halo exchange buffers
+	private ByteBuffer toPrevious;
+	private ByteBuffer toNext;
+	private ByteBuffer fromPrevious;
+	private ByteBuffer fromNext;
+
+	private int ncols;
+	private int nrows; // rows in the band
+
+	// The band, with a halo row above and below, as 0 or 1 per cell
+	private byte[] cells = new byte[0];
+	private byte[] scratch = new byte[0];
+	private byte[] before = new byte[0]; // the band as of the start of a STEP
+
+	private int[] changed = new int[1024];
+
+	private PartitionWorker(Link coordinator, SocketChannel previous, SocketChannel next)
+	    throws IOException {
+		this.coordinator = coordinator;
+		this.previous = previous;
+		this.next = next;
+		this.selector = Selector.open();
+
+		for (var channel : new SocketChannel[] { previous, next }) {
+			channel.configureBlocking(false);
+			channel.socket().setTcpNoDelay(true);
+		}
+
+		this.previousKey = previous.register(selector, 0);
+		this.nextKey = next.register(selector, 0);
+	}
+
+	public static void main(String[] args) throws IOException {
+		var loopback = InetAddress.getLoopbackAddress();
+		int port = Integer.parseInt(args[0]);
+		int index = Integer.parseInt(args[1]);
+
+		try (var peers = ServerSocketChannel.open().bind(new InetSocketAddress(loopback, 0));
+		    var coordinator = new Link(SocketChannel.open(new InetSocketAddress(loopback, port)))) {
+			// Say hello, then find out where the next worker is.
+			coordinator.writeInt(index);
+			coordinator.writeInt(((InetSocketAddress) peers.getLocalAddress()).getPort());
+			coordinator.flush();
+
+			int nextPort = coordinator.readInt();
+
+			try (var next = SocketChannel.open(new InetSocketAddress(loopback, nextPort));
+			    var previous = peers.accept()) {
+				new PartitionWorker(coordinator, previous, next).run();
+			}
+		}
+		catch (EOFException e) {
+			// The coordinator has gone away, so there's nothing left to do.
+		}
+	}
+
+	private void run() throws IOException {
+		while (true) {
+			int command = coordinator.readInt();
+
+			switch (command) {
+			case RESIZE -> resize(coordinator.readInt(), coordinator.readInt());
+			case ROWS -> {
+				int first = coordinator.readInt();
+				int count = coordinator.readInt();
+				coordinator.read(cells, (first + 1) * ncols, count * ncols);
+			}
+			case STEP -> step(coordinator.readInt());
+			case QUIT -> {
+				return;
+			}
+			default -> throw new IOException("Unknown command " + command);
+			}
+		}
+	}
+
+	private void resize(int ncols, int nrows) {
+		this.ncols = ncols;
+		this.nrows = nrows;
+		this.cells = new byte[(nrows + 2) * ncols];
+		this.scratch = new byte[cells.length];
+		this.before = new byte[nrows * ncols];
+
+		toPrevious = ByteBuffer.allocateDirect(ncols);
+		toNext = ByteBuffer.allocateDirect(ncols);
+		fromPrevious = ByteBuffer.allocateDirect(ncols);
+		fromNext = ByteBuffer.allocateDirect(ncols);
+	}
+
+	/**
+	 * Runs the given number of generations, then reports the last one that changed
+	 * the band, followed by the cells that ended up different.
+	 */
+	private void step(int generations) throws IOException {
+		System.arraycopy(cells, ncols, before, 0, before.length);
+		int lastChange = 0;
+
+		for (int generation = 1; generation <= generations; generation++) {
+			exchangeHalo();
+
+			if (nextGeneration())
+				lastChange = generation;
+		}
+
+		int count = 0;
+
+		for (int i = 0; i < before.length; i++)
+			if (cells[ncols + i] != before[i]) {
+				if (count == changed.length)
+					changed = Arrays.copyOf(changed, 2 * count);
+
+				changed[count++] = i;
+			}
+
+		coordinator.writeInt(lastChange);
+		coordinator.writeInt(count);
+
+		for (int i = 0; i < count; i++)
+			coordinator.writeInt(changed[i]);
+
+		coordinator.flush();
+	}
+
+	/**
+	 * Swaps edge rows with the neighboring workers, without blocking on either
+	 * (which could deadlock if both sides were writing more than the socket buffers
+	 * hold).
+	 */
+	private void exchangeHalo() throws IOException {
+		toPrevious.clear().put(cells, ncols, ncols).flip();
+		toNext.clear().put(cells, nrows * ncols, ncols).flip();
+		fromPrevious.clear();
+		fromNext.clear();
+
+		while (toPrevious.hasRemaining() || toNext.hasRemaining() || fromPrevious.hasRemaining()
+		    || fromNext.hasRemaining()) {
+			boolean progress = transfer(previous, toPrevious, fromPrevious)
+			    | transfer(next, toNext, fromNext);
+
+			if (!progress) {
+				previousKey.interestOps(interest(toPrevious, fromPrevious));
+				nextKey.interestOps(interest(toNext, fromNext));
+				selector.select();
+				selector.selectedKeys().clear();
+			}
+		}
+
+		fromPrevious.flip().get(cells, 0, ncols);
+		fromNext.flip().get(cells, (nrows + 1) * ncols, ncols);
+	}
+
+	private static boolean transfer(SocketChannel channel, ByteBuffer out, ByteBuffer in)
+	    throws IOException {
+		boolean progress = false;
+
+		if (out.hasRemaining())
+			progress |= channel.write(out) > 0;
+
+		if (in.hasRemaining()) {
+			int n = channel.read(in);
+
+			if (n < 0)
+				throw new EOFException("Neighbor closed the connection");
+
+			progress |= n > 0;
+		}
+
+		return progress;
+	}
+
+	private static int interest(ByteBuffer out, ByteBuffer in) {
+		return (out.hasRemaining() ? SelectionKey.OP_WRITE : 0)
+		    | (in.hasRemaining() ? SelectionKey.OP_READ : 0);
+	}
+
+	/**
+	 * Steps the band, given up-to-date halo rows.
+	 *
+	 * @return whether anything changed
+	 */
+	private boolean nextGeneration() {
+		boolean changed = false;
+
+		for (int row = 1; row <= nrows; row++) {
+			int above = (row - 1) * ncols;
+			int here = row * ncols;
+			int below = (row + 1) * ncols;
+
+			for (int col = 0; col < ncols; col++) {
+				int left = (col == 0) ? ncols - 1 : col - 1;
+				int right = (col == ncols - 1) ? 0 : col + 1;
+
+				int neighbors = cells[above + left] + cells[above + col] + cells[above + right]
+				    + cells[here + left] + cells[here + right]
+				    + cells[below + left] + cells[below + col] + cells[below + right];
+
+				byte state = cells[here + col];
+				byte next = (byte) ((neighbors == 3 || (neighbors == 2 && state != 0)) ? 1 : 0);
+				scratch[here + col] = next;
+				changed |= (next != state);
+			}
+		}
+
+		var swap = cells;
+		cells = scratch;
+		scratch = swap;
+		return changed;
+	}
+}
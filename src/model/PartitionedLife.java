@@ -0,0 +1,407 @@
+package model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conway's Game of Life (B3/S23) split across several worker processes, each of
+ * which owns a band of rows (see {@link PartitionWorker}). The workers trade
+ * the rows along the edges of their bands with each other over loopback
+ * sockets every generation, so the only traffic through this process is
+ * commands and the cells that changed.
+ * <p>
+ * This keeps a copy of the world (one byte per cell) for answering queries
+ * without asking the workers. Changes made here are sent to the workers in
+ * bulk before the next step.
+ * <p>
+ * The number of workers is set with the {@code lifeapp.workers} system
+ * property (2 by default), and they are started on the first
+ * {@link #resize}. Call {@link #close} to stop them; otherwise, they stop when
+ * this process exits.
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+public class PartitionedLife implements ILife, AutoCloseable {
+	/** How long to wait for the workers to start up */
+	private static final long STARTUP_TIMEOUT_MILLIS = 30_000;
+
+	private final int maxWorkers = Integer.getInteger("lifeapp.workers", 2);
+
+	private final List<Process> processes = new ArrayList<>();
+	private Link[] workers = new Link[0];
+	private int[] firstRows = new int[1]; // band boundaries, one more than workers
+
+	private byte[] cells = new byte[0]; // row-major ordinals
+	private boolean[] dirtyRows = new boolean[0]; // changed here since the last step
+	private boolean anyDirty;
+	private long population;
+
+	private int nrows;
+	private int ncols;
+	private final SeededRandom random = new SeededRandom();
+
+	@Override
+	public void resize(int nrows, int ncols) {
+		this.nrows = nrows;
+		this.ncols = ncols;
+		this.cells = new byte[Math.multiplyExact(nrows, ncols)];
+		this.dirtyRows = new boolean[nrows];
+		this.anyDirty = false;
+		this.population = 0;
+
+		try {
+			// Every worker needs at least one row.
+			int count = Math.max(1, Math.min(maxWorkers, nrows));
+
+			if (count != workers.length) {
+				close();
+				start(count);
+			}
+
+			firstRows = new int[count + 1];
+
+			for (int i = 0; i <= count; i++)
+				firstRows[i] = (int) ((long) i * nrows / count);
+
+			for (int i = 0; i < count; i++) {
+				workers[i].writeInt(PartitionWorker.RESIZE);
+				workers[i].writeInt(ncols);
+				workers[i].writeInt(firstRows[i + 1] - firstRows[i]);
+				workers[i].flush();
+			}
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Unable to start workers", e);
+		}
+	}
+
+	/**
+	 * Starts the given number of workers and connects them in a ring. If that
+	 * fails, any that did start are stopped.
+	 */
+	private void start(int count) throws IOException {
+		try {
+			connect(count);
+		}
+		catch (IOException | RuntimeException e) {
+			for (var worker : workers)
+				if (worker != null)
+					try {
+						worker.close();
+					}
+					catch (IOException suppressed) {
+						e.addSuppressed(suppressed);
+					}
+
+			for (var process : processes)
+				process.destroyForcibly();
+
+			workers = new Link[0];
+			processes.clear();
+			throw e;
+		}
+	}
+
+	private void connect(int count) throws IOException {
+		var loopback = InetAddress.getLoopbackAddress();
+
+		try (var server = ServerSocketChannel.open().bind(new InetSocketAddress(loopback, 0))) {
+			int port = ((InetSocketAddress) server.getLocalAddress()).getPort();
+
+			for (int i = 0; i < count; i++)
+				processes.add(new ProcessBuilder(workerCommand(port, i)).inheritIO().start());
+
+			// Wait for each to call back, checking that none has died in the meantime.
+			workers = new Link[count];
+			var peerPorts = new int[count];
+			long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT_MILLIS;
+			server.configureBlocking(false);
+
+			for (int connected = 0; connected < count;) {
+				SocketChannel channel = server.accept();
+
+				if (channel == null) {
+					if (System.currentTimeMillis() > deadline
+					    || processes.stream().anyMatch(p -> !p.isAlive()))
+						throw new IOException("Worker failed to start");
+
+					sleep(5);
+					continue;
+				}
+
+				var link = new Link(channel);
+				int index = link.readInt();
+				peerPorts[index] = link.readInt();
+				workers[index] = link;
+				connected++;
+			}
+
+			for (int i = 0; i < count; i++) {
+				workers[i].writeInt(peerPorts[(i + 1) % count]);
+				workers[i].flush();
+			}
+		}
+	}
+
+	/**
+	 * @return the command line for a worker, run from the same Java installation
+	 *         and class (or module) path as this process
+	 */
+	private static List<String> workerCommand(int port, int index) {
+		var java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+		var command = new ArrayList<>(List.of(java));
+		var module = PartitionWorker.class.getModule();
+
+		if (module.isNamed())
+			command.addAll(List.of("--module-path", System.getProperty("jdk.module.path"), "--module",
+			    module.getName() + "/" + PartitionWorker.class.getName()));
+		else
+			command.addAll(List.of("-cp", System.getProperty("java.class.path"),
+			    PartitionWorker.class.getName()));
+
+		command.add(Integer.toString(port));
+		command.add(Integer.toString(index));
+		return command;
+	}
+
+	private static void sleep(long millis) throws IOException {
+		try {
+			Thread.sleep(millis);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted", e);
+		}
+	}
+
+	/**
+	 * Stops the workers.
+	 */
+	@Override
+	public void close() {
+		for (var worker : workers) {
+			if (worker == null)
+				continue; // never connected
+
+			try {
+				worker.writeInt(PartitionWorker.QUIT);
+				worker.flush();
+				worker.close();
+			}
+			catch (IOException e) {
+				// It's going away anyway.
+			}
+		}
+
+		for (var process : processes)
+			try {
+				if (!process.waitFor(1, TimeUnit.SECONDS))
+					process.destroyForcibly();
+			}
+			catch (InterruptedException e) {
+				process.destroyForcibly();
+				Thread.currentThread().interrupt();
+			}
+
+		workers = new Link[0];
+		processes.clear();
+	}
+
+	@Override
+	public int nrows() {
+		return nrows;
+	}
+
+	@Override
+	public int ncols() {
+		return ncols;
+	}
+
+	@Override
+	public long seed() {
+		return random.seed();
+	}
+
+	@Override
+	public void reseed(long seed) {
+		random.reseed(seed);
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(cells, (byte) 0);
+		Arrays.fill(dirtyRows, true);
+		anyDirty = true;
+		population = 0;
+	}
+
+	@Override
+	public void randomize() {
+		randomize(0.5);
+	}
+
+	@Override
+	public void randomize(double density) {
+		byte alive = (byte) CellState.ALIVE.ordinal();
+		byte dead = (byte) CellState.DEAD.ordinal();
+
+		Soup.generate(nrows, ncols, density, random, (row, bits, generator) -> {
+			for (int col = 0; col < ncols; col++)
+				cells[row * ncols + col] = Soup.isSet(bits, col) ? alive : dead;
+		});
+
+		Arrays.fill(dirtyRows, true);
+		anyDirty = true;
+		population = 0;
+
+		for (byte state : cells)
+			if (state != dead)
+				population++;
+	}
+
+	@Override
+	public CellState get(int row, int col) {
+		return Regions.STATES[cells[row * ncols + col]];
+	}
+
+	@Override
+	public void set(int row, int col, CellState state) {
+		// Only dead or alive, as far as the workers are concerned
+		byte value = (byte) (state == CellState.DEAD ? 0 : CellState.ALIVE.ordinal());
+		int cell = row * ncols + col;
+
+		if (cells[cell] != value) {
+			population += (value != 0) ? 1 : -1;
+			cells[cell] = value;
+			dirtyRows[row] = true;
+			anyDirty = true;
+		}
+	}
+
+	@Override
+	public void getRegion(int row, int col, int height, int width, byte[] dest) {
+		for (int r = 0; r < height; r++)
+			System.arraycopy(cells, (row + r) * ncols + col, dest, r * width, width);
+	}
+
+	/**
+	 * Sends the rows changed here to the workers that own them.
+	 */
+	private void sendDirtyRows() throws IOException {
+		if (!anyDirty)
+			return;
+
+		for (int i = 0; i < workers.length; i++) {
+			for (int row = firstRows[i]; row < firstRows[i + 1];) {
+				if (!dirtyRows[row]) {
+					row++;
+					continue;
+				}
+
+				int end = row;
+				while (end < firstRows[i + 1] && dirtyRows[end])
+					dirtyRows[end++] = false;
+
+				workers[i].writeInt(PartitionWorker.ROWS);
+				workers[i].writeInt(row - firstRows[i]);
+				workers[i].writeInt(end - row);
+				workers[i].write(cells, row * ncols, (end - row) * ncols);
+				row = end;
+			}
+
+			workers[i].flush();
+		}
+
+		anyDirty = false;
+	}
+
+	/**
+	 * Has every worker run the given number of generations, and applies the net
+	 * change they report.
+	 *
+	 * @return the number of generations that changed the world
+	 */
+	private int run(int generations, Callback action) {
+		try {
+			sendDirtyRows();
+
+			for (var worker : workers) {
+				worker.writeInt(PartitionWorker.STEP);
+				worker.writeInt(generations);
+				worker.flush();
+			}
+
+			var apply = new LifeEvents.Apply();
+			apply.begin();
+			int lastChange = 0;
+			long updates = 0;
+
+			for (int i = 0; i < workers.length; i++) {
+				lastChange = Math.max(lastChange, workers[i].readInt());
+				int count = workers[i].readInt();
+				int offset = firstRows[i] * ncols;
+				updates += count;
+
+				for (int n = 0; n < count; n++) {
+					int cell = offset + workers[i].readInt();
+					var state = (cells[cell] == 0) ? CellState.ALIVE : CellState.DEAD;
+
+					action.invoke(cell / ncols, cell % ncols, state);
+					cells[cell] = (byte) state.ordinal();
+					population += (state == CellState.ALIVE) ? 1 : -1;
+				}
+			}
+
+			apply.commit(this, updates);
+			return lastChange;
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Lost contact with workers", e);
+		}
+	}
+
+	@Override
+	public boolean step(Callback action) {
+		return run(1, action) > 0;
+	}
+
+	/**
+	 * The workers run all the generations before reporting back, so only the net
+	 * change ever comes through this process.
+	 */
+	@Override
+	public int advance(int generations, ChangeSet changes) {
+		changes.begin(); // each cell reported has flipped, so its old state is the other one
+		return run(generations, (row, col, state) -> changes.record(row, col,
+		    (state == CellState.ALIVE) ? CellState.DEAD : CellState.ALIVE, state));
+	}
+
+	@Override
+	public void forAllLife(Callback action) {
+		for (int cell = 0; cell < cells.length; cell++)
+			if (cells[cell] != 0)
+				action.invoke(cell / ncols, cell % ncols, CellState.ALIVE);
+	}
+
+	@Override
+	public long populationCount() {
+		return population;
+	}
+
+	/**
+	 * @return Description of this model
+	 */
+	public String description() {
+		return "Conway's Game of Life.\nSplit into bands of rows, each simulated by a separate worker process, which trade the rows along their edges every generation.";
+	}
+}
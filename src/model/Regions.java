@@ -0,0 +1,63 @@
+package model;
+
+/**
+ * Bulk copy helpers shared by the models that store their cells in a row-major
+ * {@code CellState[]} (i.e., index = row * ncols + col), or in some other
+ * {@link VertexOrder}.
+ *
+ * @see ILife#getRegion
+ * @see ILife#setRegion
+ */
+final class Regions {
+	/** Cached, since {@link CellState#values()} allocates a new array each call */
+	static final CellState[] STATES = CellState.values();
+
+	private Regions() {
+	}
+
+	static void get(CellState[] cells, int ncols, int row, int col, int height, int width,
+	    byte[] dest) {
+		for (int r = 0; r < height; r++) {
+			int from = (row + r) * ncols + col;
+			int to = r * width;
+
+			for (int c = 0; c < width; c++)
+				dest[to + c] = (byte) cells[from + c].ordinal();
+		}
+	}
+
+	static void set(CellState[] cells, int ncols, int row, int col, int height, int width,
+	    byte[] src) {
+		for (int r = 0; r < height; r++) {
+			int to = (row + r) * ncols + col;
+			int from = r * width;
+
+			for (int c = 0; c < width; c++)
+				cells[to + c] = STATES[src[from + c]];
+		}
+	}
+
+	static void get(CellState[] cells, VertexOrder order, int row, int col, int height,
+	    int width, byte[] dest) {
+		if (order.isRowMajor()) {
+			get(cells, order.ncols(), row, col, height, width, dest);
+			return;
+		}
+
+		for (int r = 0; r < height; r++)
+			for (int c = 0; c < width; c++)
+				dest[r * width + c] = (byte) cells[order.vertex(row + r, col + c)].ordinal();
+	}
+
+	static void set(CellState[] cells, VertexOrder order, int row, int col, int height,
+	    int width, byte[] src) {
+		if (order.isRowMajor()) {
+			set(cells, order.ncols(), row, col, height, width, src);
+			return;
+		}
+
+		for (int r = 0; r < height; r++)
+			for (int c = 0; c < width; c++)
+				cells[order.vertex(row + r, col + c)] = STATES[src[r * width + c]];
+	}
+}
@@ -1,22 +1,44 @@
 package model;
 
 import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
 
 import edu.princeton.cs.algs4.Graph;
-import edu.princeton.cs.algs4.Queue;
 
 /**
  * A graph-based cellular automata using the rules of Rock Paper Scissors. If a
  * cell has 2 or more 'predator neighbors', the cell is overtaken.
+ * <p>
+ * Only cells on the boundaries between species can ever be overtaken, so this
+ * keeps count of each cell's predator neighbors, and a "frontier" of the cells
+ * with at least one. Each step only looks at the frontier, and when a cell
+ * changes, only its own count and its neighbors' need updating.
  * 
  * @author Tommy Collier
  * @author Paul Nguyen
  */
 public class RockPaperScissorLife implements ILife {
 	private Graph world;
-	private CellState[] cells; // row-col indexed
+	private CellState[] cells; // indexed by vertex
+	private int[] offsets;     // the world's adjacency lists, flattened for step()
+	private int[] targets;
+	private int[] predators;   // number of predator neighbors of each vertex
+	private long population;   // number of cells that aren't DEAD
+
+	// The vertices with predator neighbors, in no particular order, and where
+	// each is in the list (or -1)
+	private int[] frontier;
+	private int frontierSize;
+	private int[] slots;
+
+	private int[] flips;       // scratch for step()
+	private boolean[] flipped;
+
+	private VertexOrder order; // which vertex is which cell
 	private int nrows;
 	private int ncols;
+	private final SeededRandom random = new SeededRandom();
 	private static final CellState ROCK = CellState.BLUE;
 	private static final CellState PAPER = CellState.GREEN;
 	private static final CellState SCISSORS = CellState.RED;
@@ -27,12 +49,48 @@ public class RockPaperScissorLife implements ILife {
 		this.cells = new CellState[nrows * ncols];
 		this.nrows = nrows;
 		this.ncols = ncols;
-
-		clear();
+		this.order = VertexOrder.of(nrows, ncols);
+		this.predators = new int[cells.length];
+		this.frontier = new int[cells.length];
+		this.slots = new int[cells.length];
+		this.flips = new int[cells.length];
+		this.flipped = new boolean[cells.length];
 
 		// Initialize edges/neighbors
 		for (int current = 0; current < cells.length; current++)
 			initializeNeighbors(current);
+
+		this.offsets = new int[cells.length + 1];
+		this.targets = new int[2 * world.E()];
+
+		for (int current = 0, i = 0; current < cells.length; current++) {
+			for (int neighbor : world.adj(current))
+				targets[i++] = neighbor;
+
+			offsets[current + 1] = i;
+		}
+
+		clear();
+	}
+
+	@Override
+	public int nrows() {
+		return nrows;
+	}
+
+	@Override
+	public int ncols() {
+		return ncols;
+	}
+
+	@Override
+	public long seed() {
+		return random.seed();
+	}
+
+	@Override
+	public void reseed(long seed) {
+		random.reseed(seed);
 	}
 
 	/**
@@ -43,7 +101,7 @@ public class RockPaperScissorLife implements ILife {
 	 * @return int cell index
 	 */
 	private int convertToIndex(int row, int col) {
-		return row * ncols + col;
+		return order.vertex(row, col);
 	}
 
 	/**
@@ -53,7 +111,7 @@ public class RockPaperScissorLife implements ILife {
 	 * @return int cell's row
 	 */
 	private int convertToRow(int index) {
-		return index / ncols;
+		return order.row(index);
 	}
 
 	/**
@@ -63,7 +121,7 @@ public class RockPaperScissorLife implements ILife {
 	 * @return int cell's col
 	 */
 	private int convertToCol(int index) {
-		return index % ncols;
+		return order.col(index);
 	}
 
 	/**
@@ -104,19 +162,30 @@ public class RockPaperScissorLife implements ILife {
 	@Override
 	public void clear() {
 		Arrays.fill(cells, CellState.DEAD);
+		recountAll();
 	}
 
 	@Override
 	public void randomize() {
-		for (int current = 0; current < cells.length; current++) {
-			int randomInt = RANDOM.nextInt(3);
-			if (randomInt == 0)
-				cells[current] = ROCK;
-			else if (randomInt == 1)
-				cells[current] = PAPER;
-			else
-				cells[current] = SCISSORS;
-		}
+		// Every cell belongs to some species, so there's no density to speak of.
+		Soup.generate(nrows, ncols, 1.0, random, (row, bits, generator) -> {
+			for (int col = 0; col < ncols; col++) {
+				int randomInt = generator.nextInt(3);
+				if (randomInt == 0)
+					cells[convertToIndex(row, col)] = ROCK;
+				else if (randomInt == 1)
+					cells[convertToIndex(row, col)] = PAPER;
+				else
+					cells[convertToIndex(row, col)] = SCISSORS;
+			}
+		});
+
+		recountAll();
+	}
+
+	@Override
+	public Set<CellState> states() {
+		return EnumSet.of(CellState.DEAD, ROCK, PAPER, SCISSORS);
 	}
 
 	@Override
@@ -126,58 +195,162 @@ public class RockPaperScissorLife implements ILife {
 
 	@Override
 	public void set(int row, int col, CellState state) {
-		cells[convertToIndex(row, col)] = state;
+		int index = convertToIndex(row, col);
+
+		if (cells[index] != state) {
+			replace(index, state);
+			recount(index);
+		}
 	}
 
 	@Override
-	public boolean step(Callback action) {
-		Queue<Cell> queue = new Queue<>();
+	public void getRegion(int row, int col, int height, int width, byte[] dest) {
+		Regions.get(cells, order, row, col, height, width, dest);
+	}
+
+	@Override
+	public void setRegion(int row, int col, int height, int width, byte[] src) {
+		Regions.set(cells, order, row, col, height, width, src);
+		recountAll();
+	}
+
+	/**
+	 * @return the species that overtakes the given one
+	 */
+	private static CellState predatorOf(CellState species) {
+		if (species == ROCK)
+			return PAPER;
+		else if (species == PAPER)
+			return SCISSORS;
+		else
+			return ROCK;
+	}
+
+	/**
+	 * Recounts the predator neighbors of a cell, and adds it to or removes it
+	 * from the frontier.
+	 *
+	 * @param index
+	 */
+	private void recount(int index) {
+		CellState predator = predatorOf(cells[index]);
+		int count = 0;
+
+		for (int i = offsets[index]; i < offsets[index + 1]; i++)
+			if (cells[targets[i]] == predator)
+				count++;
+
+		predators[index] = count;
+		updateFrontier(index);
+	}
+
+	/**
+	 * Recounts every cell, after changes to more than a few of them.
+	 */
+	private void recountAll() {
+		Arrays.fill(slots, -1);
+		frontierSize = 0;
+		population = 0;
 
-		// Calculate needed updates
 		for (int current = 0; current < cells.length; current++) {
-			CellState species = cells[current];
-			int row = convertToRow(current);
-			int col = convertToCol(current);
-
-			// Set predator.
-			CellState predator;
-			if (species == ROCK)
-				predator = PAPER;
-			else if (species == PAPER)
-				predator = SCISSORS;
-			else
-				predator = ROCK;
-
-			// Count neighbors.
-			int predatorNeighbors = 0;
-			for (int neighbor : world.adj(current)) {
-				if (cells[neighbor] == predator)
-					predatorNeighbors++;
-			}
+			recount(current);
 
-			// Record needed updates
-			if (predatorNeighbors > 2)
-				queue.enqueue(new Cell(row, col, predator));
-			else
-				queue.enqueue(new Cell(row, col, species));
+			if (cells[current] != CellState.DEAD)
+				population++;
 		}
+	}
 
-		boolean worldChanged = false;
+	/**
+	 * Puts a cell on the frontier if it has any predator neighbors, or takes it
+	 * off if not.
+	 *
+	 * @param index
+	 */
+	private void updateFrontier(int index) {
+		if (predators[index] > 0 && slots[index] < 0) {
+			slots[index] = frontierSize;
+			frontier[frontierSize++] = index;
+		}
+		else if (predators[index] == 0 && slots[index] >= 0) {
+			int last = frontier[--frontierSize];
+			frontier[slots[index]] = last;
+			slots[last] = slots[index];
+			slots[index] = -1;
+		}
+	}
+
+	/**
+	 * Changes the state of a cell, updating the counts of its neighbors (other
+	 * than those being flipped in the same step, which are recounted afterwards).
+	 * The cell's own count is left for the caller to update.
+	 *
+	 * @param index
+	 * @param state
+	 */
+	private void replace(int index, CellState state) {
+		CellState old = cells[index];
+		cells[index] = state;
+
+		if (old == CellState.DEAD)
+			population++;
+		else if (state == CellState.DEAD)
+			population--;
+
+		for (int i = offsets[index]; i < offsets[index + 1]; i++) {
+			int neighbor = targets[i];
+
+			if (flipped[neighbor])
+				continue;
+
+			CellState predator = predatorOf(cells[neighbor]);
+
+			if (old == predator)
+				predators[neighbor]--;
+			if (state == predator)
+				predators[neighbor]++;
+
+			updateFrontier(neighbor);
+		}
+	}
+
+	@Override
+	public boolean step(Callback action) {
+		// Calculate needed updates, only on the frontier
+		int updates = 0;
+
+		for (int i = 0; i < frontierSize; i++) {
+			int current = frontier[i];
+
+			if (predators[current] > 2)
+				flips[updates++] = current;
+		}
+
+		// In vertex order, rather than however the frontier happens to be shuffled
+		Arrays.sort(flips, 0, updates);
+
+		var apply = new LifeEvents.Apply();
+		apply.begin();
 
 		// Make needed updates (done afterwards to prevent invalid updates)
-		while (!queue.isEmpty()) {
-			Cell cell = queue.dequeue();
+		for (int i = 0; i < updates; i++)
+			flipped[flips[i]] = true;
 
-			// Invoke callback if a new state differs from old state
-			if (cell.state() != get(cell.row(), cell.col())) {
-				action.invoke(cell.row(), cell.col(), cell.state());
-				worldChanged = true;
-			}
+		for (int i = 0; i < updates; i++) {
+			int current = flips[i];
+			CellState predator = predatorOf(cells[current]);
 
-			set(cell.row(), cell.col(), cell.state());
+			replace(current, predator);
+			action.invoke(convertToRow(current), convertToCol(current), predator);
 		}
 
-		return worldChanged;
+		for (int i = 0; i < updates; i++) {
+			flipped[flips[i]] = false;
+			recount(flips[i]);
+		}
+
+		apply.commit(this, updates);
+
+		return updates > 0;
 	}
 
 	@Override
@@ -188,7 +361,7 @@ public class RockPaperScissorLife implements ILife {
 
 	@Override
 	public long populationCount() {
-		return nrows * ncols; // All cells are considered alive.
+		return population;
 	}
 
 	/**
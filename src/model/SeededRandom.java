@@ -0,0 +1,88 @@
+package model;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * A model's own source of randomness, which remembers the seed it was started
+ * from so that a run can be reproduced (e.g., to compare engines on identical
+ * soups).
+ * <p>
+ * This is a {@link RandomGenerator}, so it can be used in place of
+ * {@link java.util.Random}. Work that is split across threads (or tiles) should
+ * draw from {@link #split()} instead, so that the generators don't contend and
+ * the result doesn't depend on scheduling.
+ * <p>
+ * Like the models themselves, this isn't thread-safe.
+ *
+ * @see ILife#reseed(long)
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+public final class SeededRandom implements RandomGenerator {
+	private long seed;
+	private SplittableRandom generator;
+
+	/**
+	 * Starts from an arbitrary seed.
+	 */
+	public SeededRandom() {
+		this(newSeed());
+	}
+
+	public SeededRandom(long seed) {
+		reseed(seed);
+	}
+
+	/**
+	 * @return an arbitrary seed, different on every call (with high probability)
+	 */
+	public static long newSeed() {
+		return ThreadLocalRandom.current().nextLong();
+	}
+
+	/**
+	 * @return the seed this was last (re)started from
+	 */
+	public long seed() {
+		return seed;
+	}
+
+	/**
+	 * Restarts the sequence of random numbers from the given seed.
+	 */
+	public void reseed(long seed) {
+		this.seed = seed;
+		this.generator = new SplittableRandom(seed);
+	}
+
+	/**
+	 * Splits off an independent generator, e.g., for another thread. The split
+	 * generators are themselves determined by the seed (and the order in which
+	 * they were split off).
+	 */
+	public SplittableRandom split() {
+		return generator.split();
+	}
+
+	@Override
+	public long nextLong() {
+		return generator.nextLong();
+	}
+
+	@Override
+	public int nextInt() {
+		return generator.nextInt();
+	}
+
+	@Override
+	public int nextInt(int bound) {
+		return generator.nextInt(bound);
+	}
+
+	@Override
+	public boolean nextBoolean() {
+		return generator.nextBoolean();
+	}
+}
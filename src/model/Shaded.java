@@ -0,0 +1,27 @@
+package model;
+
+/**
+ * A model whose cells come in more shades than {@link CellState} can tell
+ * apart, e.g., how far along a cell is in dying. The renderer draws these on a
+ * color ramp from dead to fully alive, asking for the shade of each cell it
+ * draws (so the model must already be in its new state when it reports a
+ * change).
+ * <p>
+ * Everything else (e.g., history and snapshots) still only sees the
+ * {@link CellState}s, so the shades of restored cells are up to the model.
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+public interface Shaded {
+	/**
+	 * @return the number of shades (at most 256), where 0 is dead and the last is
+	 *         fully alive
+	 */
+	int shades();
+
+	/**
+	 * @return the shade of the given cell
+	 */
+	int shade(int row, int col);
+}
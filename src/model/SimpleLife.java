@@ -15,6 +15,7 @@ public class SimpleLife implements ILife {
 	private CellState[][] world; // will be instantiated whenever resize() is called
 	private int nrows;
 	private int ncols;
+	private final SeededRandom random = new SeededRandom();
 
 	@Override
 	public void resize(int nrows, int ncols) {
@@ -24,6 +25,26 @@ public class SimpleLife implements ILife {
 		clear();
 	}
 
+	@Override
+	public int nrows() {
+		return nrows;
+	}
+
+	@Override
+	public int ncols() {
+		return ncols;
+	}
+
+	@Override
+	public long seed() {
+		return random.seed();
+	}
+
+	@Override
+	public void reseed(long seed) {
+		random.reseed(seed);
+	}
+
 	@Override
 	public void clear() {
 		for (var row : world)
@@ -32,12 +53,15 @@ public class SimpleLife implements ILife {
 
 	@Override
 	public void randomize() {
-		for (int r = 0; r < nrows; r++)
+		randomize(0.5);
+	}
+
+	@Override
+	public void randomize(double density) {
+		Soup.generate(nrows, ncols, density, random, (r, bits, generator) -> {
 			for (int c = 0; c < ncols; c++)
-				if (RANDOM.nextBoolean())
-					world[r][c] = CellState.ALIVE;
-				else
-					world[r][c] = CellState.DEAD;
+				world[r][c] = Soup.isSet(bits, c) ? CellState.ALIVE : CellState.DEAD;
+		});
 	}
 
 	@Override
@@ -50,6 +74,20 @@ public class SimpleLife implements ILife {
 		world[row][col] = state;
 	}
 
+	@Override
+	public void getRegion(int row, int col, int height, int width, byte[] dest) {
+		for (int r = 0; r < height; r++)
+			for (int c = 0; c < width; c++)
+				dest[r * width + c] = (byte) world[row + r][col + c].ordinal();
+	}
+
+	@Override
+	public void setRegion(int row, int col, int height, int width, byte[] src) {
+		for (int r = 0; r < height; r++)
+			for (int c = 0; c < width; c++)
+				world[row + r][col + c] = Regions.STATES[src[r * width + c]];
+	}
+
 	@Override
 	public boolean step(Callback action) {
 		Queue<Cell> queue = new Queue<>();
@@ -73,6 +111,10 @@ public class SimpleLife implements ILife {
 
 		boolean worldChanged = false;
 
+		var apply = new LifeEvents.Apply();
+		apply.begin();
+		int updates = queue.size();
+
 		// Make needed updates (done afterwards to prevent invalid updates)
 		while (!queue.isEmpty()) {
 			Cell cell = queue.dequeue();
@@ -86,6 +128,8 @@ public class SimpleLife implements ILife {
 			set(cell.row(), cell.col(), cell.state());
 		}
 
+		apply.commit(this, updates);
+
 		return worldChanged;
 	}
 
@@ -0,0 +1,161 @@
+package model;
+
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Bulk random fills for {@link ILife#randomize(double)}.
+ * <p>
+ * Instead of one {@code nextBoolean()} per cell, the cells of a row are drawn
+ * 64 at a time as the bits of random longs. At 50% density, each
+ * {@code nextLong()} covers 64 cells; other densities are built up by
+ * combining a few words per bit of precision (see {@link #randomBits}).
+ * <p>
+ * The world is cut into bands of rows, each drawn from its own generator split
+ * off the model's generator in band order. The bands are filled in parallel
+ * for large worlds, but the result depends only on the seed, not on the number
+ * of threads.
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+final class Soup {
+	/** Densities are rounded to this many bits, i.e., to the nearest 1/65536 */
+	private static final int DENSITY_BITS = 16;
+
+	/** Roughly how many cells go in a band (each band gets its own generator) */
+	private static final int CELLS_PER_BAND = 1 << 16;
+
+	/** Smaller worlds aren't worth farming out to other threads */
+	private static final long PARALLEL_THRESHOLD = 1 << 18;
+
+	private Soup() {
+	}
+
+	/**
+	 * Receives one row of the soup. Rows of different bands are written
+	 * concurrently, so implementations must only touch their own row.
+	 */
+	@FunctionalInterface
+	interface RowWriter {
+		/**
+		 * @param bits   bit {@code c & 63} of {@code bits[c >> 6]} is set if column
+		 *               {@code c} is alive; reused for the next row
+		 * @param random the band's generator, for any further choices (e.g.,
+		 *               species)
+		 */
+		void write(int row, long[] bits, SplittableRandom random);
+	}
+
+	/**
+	 * Draws a soup with the given density of live cells, row by row.
+	 */
+	static void generate(int nrows, int ncols, double density, SeededRandom random,
+	    RowWriter writer) {
+		int bandHeight = Math.max(1, CELLS_PER_BAND / Math.max(ncols, 1));
+		int nbands = (nrows + bandHeight - 1) / bandHeight;
+		long threshold = threshold(density);
+
+		// Split in order up front, so that each band's numbers don't depend on timing.
+		var generators = new SplittableRandom[nbands];
+
+		for (int band = 0; band < nbands; band++)
+			generators[band] = random.split();
+
+		var bands = IntStream.range(0, nbands);
+
+		if ((long) nrows * ncols >= PARALLEL_THRESHOLD)
+			bands = bands.parallel();
+
+		bands.forEach(band -> {
+			var generator = generators[band];
+			long[] bits = new long[(ncols + 63) >>> 6];
+			int end = Math.min(nrows, (band + 1) * bandHeight);
+
+			for (int row = band * bandHeight; row < end; row++) {
+				for (int w = 0; w < bits.length; w++)
+					bits[w] = randomBits(threshold, generator);
+
+				// Clear the bits past the last column.
+				if ((ncols & 63) != 0)
+					bits[bits.length - 1] &= (1L << ncols) - 1;
+
+				writer.write(row, bits, generator);
+			}
+		});
+	}
+
+	/**
+	 * Fills a row-major array with a soup of {@code alive} cells.
+	 */
+	static void fill(CellState[] cells, int ncols, double density, CellState alive,
+	    SeededRandom random) {
+		int nrows = (ncols == 0) ? 0 : cells.length / ncols;
+
+		generate(nrows, ncols, density, random, (row, bits, generator) -> {
+			int offset = row * ncols;
+
+			for (int col = 0; col < ncols; col++)
+				cells[offset + col] = isSet(bits, col) ? alive : CellState.DEAD;
+		});
+	}
+
+	/**
+	 * Like {@link #fill(CellState[], int, double, CellState, SeededRandom)}, for
+	 * cells in the given order. The soup is the same whatever the order.
+	 */
+	static void fill(CellState[] cells, VertexOrder order, double density, CellState alive,
+	    SeededRandom random) {
+		if (order.isRowMajor()) {
+			fill(cells, order.ncols(), density, alive, random);
+			return;
+		}
+
+		int ncols = order.ncols();
+		int nrows = (ncols == 0) ? 0 : cells.length / ncols;
+
+		generate(nrows, ncols, density, random, (row, bits, generator) -> {
+			for (int col = 0; col < ncols; col++)
+				cells[order.vertex(row, col)] = isSet(bits, col) ? alive : CellState.DEAD;
+		});
+	}
+
+	static boolean isSet(long[] bits, int col) {
+		return (bits[col >>> 6] & (1L << col)) != 0;
+	}
+
+	/**
+	 * @return the density as a fraction of 2^DENSITY_BITS
+	 */
+	private static long threshold(double density) {
+		return Math.round(Math.clamp(density, 0.0, 1.0) * (1 << DENSITY_BITS));
+	}
+
+	/**
+	 * Returns 64 bits, each set independently with probability
+	 * {@code threshold / 2^DENSITY_BITS}.
+	 * <p>
+	 * Reading the binary expansion of the probability from its least significant
+	 * (nonzero) bit up, each 1 ORs in a fresh random word and each 0 ANDs one in,
+	 * which sets a bit with probability (p + 1) / 2 or p / 2, respectively. So
+	 * 50% costs one word, 25% or 75% two, and so on.
+	 */
+	private static long randomBits(long threshold, SplittableRandom random) {
+		if (threshold <= 0)
+			return 0;
+
+		if (threshold >= 1 << DENSITY_BITS)
+			return -1;
+
+		long bits = 0;
+
+		for (int i = Long.numberOfTrailingZeros(threshold); i < DENSITY_BITS; i++) {
+			if ((threshold & (1L << i)) != 0)
+				bits |= random.nextLong();
+			else
+				bits &= random.nextLong();
+		}
+
+		return bits;
+	}
+}
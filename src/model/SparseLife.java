@@ -1,5 +1,6 @@
 package model;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Set;
@@ -14,10 +15,20 @@ import java.util.Set;
 public class SparseLife implements ILife {
 	private int nrows;
 	private int ncols;
+	private final SeededRandom random = new SeededRandom();
 
 	/** Stores only the (row, col) locations of live cells */
 	private Set<Loc> liveSet;
 
+	/*
+	 * The columns of the live cells sorted by row (those of row r are from
+	 * rowStart[r] up to rowStart[r + 1]), so that reading a region only looks at
+	 * its rows. Built when a region is read, and dropped whenever the live set
+	 * changes.
+	 */
+	private int[] rowStart;
+	private int[] liveCols;
+
 	/**
 	 * Use this method to create an index pair instead of {@link Loc#Loc new
 	 * Loc(...)} to normalize the indices / adjust for grid wrap-around.
@@ -56,20 +67,54 @@ public class SparseLife implements ILife {
 		this.nrows = nrows;
 		this.ncols = ncols;
 		this.liveSet = new HashSet<>();
+		dropIndex();
+	}
+
+	@Override
+	public int nrows() {
+		return nrows;
+	}
+
+	@Override
+	public int ncols() {
+		return ncols;
+	}
+
+	@Override
+	public long seed() {
+		return random.seed();
+	}
+
+	@Override
+	public void reseed(long seed) {
+		random.reseed(seed);
 	}
 
 	@Override
 	public void clear() {
 		liveSet.clear();
+		dropIndex();
 	}
 
 	@Override
 	public void randomize() {
+		randomize(0.5);
+	}
+
+	@Override
+	public void randomize(double density) {
+		// The set isn't thread-safe, so collect the rows first.
+		var rows = new long[nrows][];
+		Soup.generate(nrows, ncols, density, random, (r, bits, generator) -> {
+			rows[r] = bits.clone();
+		});
+
 		liveSet.clear();
+		dropIndex();
 
 		for (int r = 0; r < nrows; r++)
 			for (int c = 0; c < ncols; c++)
-				if (RANDOM.nextBoolean())
+				if (Soup.isSet(rows[r], c))
 					liveSet.add(loc(r, c));
 	}
 
@@ -83,14 +128,122 @@ public class SparseLife implements ILife {
 
 	@Override
 	public void set(int row, int col, CellState state) {
+		dropIndex();
+
 		if (state == CellState.ALIVE)
 			liveSet.add(loc(row, col));
 		else // (state == CellState.DEAD)
 			liveSet.remove(loc(row, col));
 	}
 
+	@Override
+	public void getRegion(int row, int col, int height, int width, byte[] dest) {
+		// Looking up each cell is fine for small blocks, but for larger ones, only
+		// the live cells in the block's rows need to be visited.
+		if ((long) height * width < liveSet.size()) {
+			for (int r = 0; r < height; r++)
+				for (int c = 0; c < width; c++)
+					dest[r * width + c] = (byte) get(row + r, col + c).ordinal();
+			return;
+		}
+
+		Arrays.fill(dest, 0, height * width, (byte) CellState.DEAD.ordinal());
+
+		if (rowStart == null)
+			buildIndex();
+
+		for (int r = 0; r < height; r++)
+			for (int i = rowStart[row + r]; i < rowStart[row + r + 1]; i++) {
+				int c = liveCols[i] - col;
+
+				if (c >= 0 && c < width)
+					dest[r * width + c] = (byte) CellState.ALIVE.ordinal();
+			}
+	}
+
+	/**
+	 * Sorts the live cells' columns by row (see {@link #rowStart}).
+	 */
+	private void buildIndex() {
+		rowStart = new int[nrows + 1];
+		liveCols = new int[liveSet.size()];
+
+		for (var loc : liveSet)
+			rowStart[loc.row() + 1]++;
+
+		for (int r = 0; r < nrows; r++)
+			rowStart[r + 1] += rowStart[r];
+
+		var next = Arrays.copyOf(rowStart, nrows);
+
+		for (var loc : liveSet)
+			liveCols[next[loc.row()]++] = loc.col();
+	}
+
+	private void dropIndex() {
+		rowStart = null;
+		liveCols = null;
+	}
+
+	@Override
+	public void setRegion(int row, int col, int height, int width, byte[] src) {
+		byte alive = (byte) CellState.ALIVE.ordinal();
+		dropIndex();
+
+		// Looking up each cell is fine for small blocks, but for larger ones (e.g.,
+		// loading a snapshot), drop the block's live cells in one pass over the set.
+		if ((long) height * width < liveSet.size()) {
+			for (int r = 0; r < height; r++)
+				for (int c = 0; c < width; c++)
+					set(row + r, col + c, Regions.STATES[src[r * width + c]]);
+			return;
+		}
+
+		if (height == nrows && width == ncols)
+			liveSet = new HashSet<>();
+		else
+			liveSet.removeIf(loc -> loc.row() >= row && loc.row() < row + height
+			    && loc.col() >= col && loc.col() < col + width);
+
+		for (int r = 0; r < height; r++)
+			for (int c = 0; c < width; c++)
+				if (src[r * width + c] == alive)
+					liveSet.add(new Loc(row + r, col + c));
+	}
+
 	@Override
 	public boolean step(Callback action) {
+		return nextGeneration(action);
+	}
+
+	/**
+	 * Skips the per-cell notifications entirely, and then reports the difference
+	 * between the first and last live sets.
+	 */
+	@Override
+	public int advance(int generations, ChangeSet changes) {
+		changes.begin(); // the live sets say what each cell was
+		var initial = liveSet;
+		int advanced = 0;
+
+		while (advanced < generations && nextGeneration(null))
+			advanced++;
+
+		for (var loc : initial)
+			if (!liveSet.contains(loc))
+				changes.record(loc.row(), loc.col(), CellState.ALIVE, CellState.DEAD);
+
+		for (var loc : liveSet)
+			if (!initial.contains(loc))
+				changes.record(loc.row(), loc.col(), CellState.DEAD, CellState.ALIVE);
+
+		return advanced;
+	}
+
+	/**
+	 * @param action notified of each change, unless {@code null}
+	 */
+	private boolean nextGeneration(Callback action) {
 		/*
 		 * New life can only spawn next to current life. Thus, the only cells that we
 		 * need to consider are the current live cells and their immediate neighbors.
@@ -131,12 +284,16 @@ public class SparseLife implements ILife {
 			// Notify caller if there is a state change for this cell.
 			if (futureLife != presentLife) {
 				var state = futureLife ? CellState.ALIVE : CellState.DEAD;
-				action.invoke(loc.row(), loc.col(), state);
+
+				if (action != null)
+					action.invoke(loc.row(), loc.col(), state);
+
 				worldChanged = true;
 			}
 		}
 
 		liveSet = nextGeneration;
+		dropIndex();
 		return worldChanged;
 	}
 
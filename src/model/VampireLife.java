@@ -1,7 +1,10 @@
 package model;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
 
 import edu.princeton.cs.algs4.BreadthFirstPaths;
 import edu.princeton.cs.algs4.Graph;
@@ -19,6 +22,7 @@ public class VampireLife implements ILife {
 	private CellState[] cells; // row-col indexed
 	private int nrows;
 	private int ncols;
+	private final SeededRandom random = new SeededRandom();
 	private int[][] vampireTargets; // row-col indexed
 	private int vampireCount = 0;
 	private static final CellState COLOR_1 = CellState.RED;
@@ -44,6 +48,26 @@ public class VampireLife implements ILife {
 		}
 	}
 
+	@Override
+	public int nrows() {
+		return nrows;
+	}
+
+	@Override
+	public int ncols() {
+		return ncols;
+	}
+
+	@Override
+	public long seed() {
+		return random.seed();
+	}
+
+	@Override
+	public void reseed(long seed) {
+		random.reseed(seed);
+	}
+
 	/**
 	 * Returns index of cell based on row and col
 	 *
@@ -114,18 +138,25 @@ public class VampireLife implements ILife {
 	public void clear() {
 		Arrays.fill(cells, CellState.DEAD);
 		vampireTargets = new int[nrows * ncols][2];
+		vampireCount = 0;
 	}
 
 	@Override
 	public void randomize() {
-		for (int current = 0; current < cells.length; current++)
-			if (RANDOM.nextBoolean())
-				cells[current] = CellState.ALIVE;
-			else
-				cells[current] = CellState.DEAD;
+		randomize(0.5);
+	}
+
+	@Override
+	public void randomize(double density) {
+		Soup.fill(cells, ncols, density, CellState.ALIVE, random);
 
 		// Generate 1 vampire.
-		cells[RANDOM.nextInt(cells.length)] = COLOR_1;
+		cells[random.nextInt(cells.length)] = COLOR_1;
+	}
+
+	@Override
+	public Set<CellState> states() {
+		return EnumSet.of(CellState.DEAD, CellState.ALIVE, CellState.RED);
 	}
 
 	@Override
@@ -138,6 +169,39 @@ public class VampireLife implements ILife {
 		cells[convertToIndex(row, col)] = state;
 	}
 
+	@Override
+	public void getRegion(int row, int col, int height, int width, byte[] dest) {
+		Regions.get(cells, ncols, row, col, height, width, dest);
+	}
+
+	@Override
+	public void setRegion(int row, int col, int height, int width, byte[] src) {
+		Regions.set(cells, ncols, row, col, height, width, src);
+	}
+
+	@Override
+	public int extrasSize() {
+		return Integer.BYTES + vampireTargets.length * 2 * Integer.BYTES;
+	}
+
+	@Override
+	public void saveExtras(ByteBuffer dest) {
+		dest.putInt(vampireCount);
+
+		for (int[] info : vampireTargets)
+			dest.putInt(info[0]).putInt(info[1]); // Target, steps spent chasing target
+	}
+
+	@Override
+	public void loadExtras(ByteBuffer src) {
+		vampireCount = src.getInt();
+
+		for (int[] info : vampireTargets) {
+			info[0] = src.getInt();
+			info[1] = src.getInt();
+		}
+	}
+
 	@Override
 	public boolean step(Callback action) {
 		Queue<Cell> queue = new Queue<>();
@@ -206,7 +270,7 @@ public class VampireLife implements ILife {
 						}
 
 						// Pick a random position for next position
-						nextPosition = availablePositions.get(RANDOM.nextInt(availablePositions.size()));
+						nextPosition = availablePositions.get(random.nextInt(availablePositions.size()));
 					}
 
 					// If moving, move.
@@ -275,6 +339,10 @@ public class VampireLife implements ILife {
 
 		boolean worldChanged = false;
 
+		var apply = new LifeEvents.Apply();
+		apply.begin();
+		int updates = queue.size();
+
 		// Make needed updates (done afterwards to prevent invalid updates)
 		int newvampireCount = 0;
 		while (!queue.isEmpty()) {
@@ -292,6 +360,8 @@ public class VampireLife implements ILife {
 		}
 		vampireCount = newvampireCount;
 
+		apply.commit(this, updates);
+
 		return worldChanged;
 	}
 
@@ -0,0 +1,175 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Which vertex (i.e., index into the cell array) stands for which cell, for the
+ * graph models.
+ * <p>
+ * Numbering the cells row by row is simplest, but then a cell's neighbors above
+ * and below are a whole row away in memory, so on worlds that don't fit in the
+ * cache, every cell visited drags in a few distant cache lines. Numbering them
+ * along a space-filling curve instead keeps most neighbors within a few
+ * vertices of each other.
+ * <p>
+ * The order is picked with the {@code lifeapp.vertexOrder} system property
+ * ({@code row-major}, {@code z-order} or {@code hilbert}), and is row-major by
+ * default (or if the property names something else). Worlds more than
+ * {@value #MAX_CURVE_SIDE} cells across are always numbered row by row, since
+ * the distances along the curve would no longer fit in the sort keys.
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+final class VertexOrder {
+	enum Curve {
+		/** Row by row */
+		ROW_MAJOR,
+		/** Morton order, which interleaves the bits of the row and column */
+		Z_ORDER,
+		/** A Hilbert curve, which never jumps between distant cells */
+		HILBERT;
+
+		/**
+		 * @return the curve named by the {@code lifeapp.vertexOrder} property, or
+		 *         ROW_MAJOR if it doesn't name one
+		 */
+		static Curve configured() {
+			String name = System.getProperty("lifeapp.vertexOrder", "row-major");
+
+			try {
+				return valueOf(name.toUpperCase().replace('-', '_'));
+			}
+			catch (IllegalArgumentException e) {
+				System.err.println("Unknown lifeapp.vertexOrder \"" + name + "\", using row-major");
+				return ROW_MAJOR;
+			}
+		}
+	}
+
+	private static final Curve CONFIGURED = Curve.configured();
+
+	/**
+	 * The most rows or columns a curve can cover: 16 bits of each, so that the
+	 * distance along it fits in 32 bits
+	 */
+	private static final int MAX_CURVE_SIDE = 1 << 16;
+
+	private final int ncols;
+
+	// Both null for row-major order, where the vertex is the row-major index.
+	private final int[] vertexOf; // by row-major index
+	private final int[] cellOf;   // row-major index by vertex
+
+	private VertexOrder(int ncols, int[] vertexOf, int[] cellOf) {
+		this.ncols = ncols;
+		this.vertexOf = vertexOf;
+		this.cellOf = cellOf;
+	}
+
+	/**
+	 * @return the configured order for a world of the given size
+	 */
+	static VertexOrder of(int nrows, int ncols) {
+		return of(CONFIGURED, nrows, ncols);
+	}
+
+	static VertexOrder of(Curve curve, int nrows, int ncols) {
+		if (curve == Curve.ROW_MAJOR || Math.max(nrows, ncols) > MAX_CURVE_SIDE)
+			return new VertexOrder(ncols, null, null);
+
+		int cells = Math.multiplyExact(nrows, ncols);
+		int side = Integer.highestOneBit(Math.max(1, Math.max(nrows, ncols) - 1)) << 1;
+
+		// Sort the cells by their distance along the curve (which covers a square
+		// big enough for the world), and number them in that order.
+		var keys = new long[cells];
+		for (int row = 0; row < nrows; row++)
+			for (int col = 0; col < ncols; col++) {
+				long distance = (curve == Curve.Z_ORDER) ? morton(row, col) : hilbert(side, row, col);
+				keys[row * ncols + col] = distance << 32 | (row * ncols + col);
+			}
+
+		Arrays.sort(keys);
+
+		var vertexOf = new int[cells];
+		var cellOf = new int[cells];
+
+		for (int vertex = 0; vertex < cells; vertex++) {
+			int cell = (int) keys[vertex];
+			vertexOf[cell] = vertex;
+			cellOf[vertex] = cell;
+		}
+
+		return new VertexOrder(ncols, vertexOf, cellOf);
+	}
+
+	int ncols() {
+		return ncols;
+	}
+
+	boolean isRowMajor() {
+		return vertexOf == null;
+	}
+
+	int vertex(int row, int col) {
+		int cell = row * ncols + col;
+		return (vertexOf == null) ? cell : vertexOf[cell];
+	}
+
+	int row(int vertex) {
+		return ((cellOf == null) ? vertex : cellOf[vertex]) / ncols;
+	}
+
+	int col(int vertex) {
+		return ((cellOf == null) ? vertex : cellOf[vertex]) % ncols;
+	}
+
+	/**
+	 * @return the row and column (each up to 16 bits) interleaved
+	 */
+	private static long morton(int row, int col) {
+		return spread(row) << 1 | spread(col);
+	}
+
+	/** Spreads out the low 16 bits of x to every other bit */
+	private static long spread(int x) {
+		long bits = x & 0xFFFFL;
+		bits = (bits | bits << 8) & 0x00FF00FFL;
+		bits = (bits | bits << 4) & 0x0F0F0F0FL;
+		bits = (bits | bits << 2) & 0x33333333L;
+		bits = (bits | bits << 1) & 0x55555555L;
+		return bits;
+	}
+
+	/**
+	 * @param side a power of 2, at least as big as the row and column
+	 * @return the distance along a Hilbert curve filling a square of the given
+	 *         side to the given cell
+	 */
+	private static long hilbert(int side, int row, int col) {
+		long distance = 0;
+		int x = col;
+		int y = row;
+
+		for (int s = side / 2; s > 0; s /= 2) {
+			int rx = (x & s) != 0 ? 1 : 0;
+			int ry = (y & s) != 0 ? 1 : 0;
+			distance += (long) s * s * ((3 * rx) ^ ry);
+
+			// Rotate the quadrant, so that the curve joins up.
+			if (ry == 0) {
+				if (rx == 1) {
+					x = side - 1 - x;
+					y = side - 1 - y;
+				}
+
+				int t = x;
+				x = y;
+				y = t;
+			}
+		}
+
+		return distance;
+	}
+}
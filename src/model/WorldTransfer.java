@@ -0,0 +1,75 @@
+package model;
+
+/**
+ * Copies a world from one model to another of the same size, e.g., to compare
+ * how different models carry on from the same soup.
+ * <p>
+ * The states are copied in bulk (see {@link ILife#getRegion} and
+ * {@link ILife#setRegion}), and converted to the nearest state the new model
+ * makes use of (see {@link ILife#states}): states it knows stay as they are,
+ * and any other live state becomes ALIVE, or if the new model doesn't have
+ * ALIVE either, its first live state.
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+public final class WorldTransfer {
+	private WorldTransfer() {
+	}
+
+	/**
+	 * Copies the world from one model into the other, which must already be the
+	 * same size.
+	 *
+	 * @return whether any states had to be converted
+	 */
+	public static boolean copy(ILife from, ILife to) {
+		if (from.nrows() != to.nrows() || from.ncols() != to.ncols())
+			throw new IllegalArgumentException("Can't copy a %dx%d world into a %dx%d one"
+			    .formatted(from.nrows(), from.ncols(), to.nrows(), to.ncols()));
+
+		var event = new LifeEvents.Transfer();
+		event.begin();
+
+		byte[] conversion = conversion(to);
+		int nrows = from.nrows();
+		int ncols = from.ncols();
+		var states = new byte[Math.multiplyExact(nrows, ncols)];
+		boolean converted = false;
+
+		from.getRegion(0, 0, nrows, ncols, states);
+
+		for (int i = 0; i < states.length; i++) {
+			byte state = conversion[states[i]];
+			converted |= (state != states[i]);
+			states[i] = state;
+		}
+
+		to.setRegion(0, 0, nrows, ncols, states);
+
+		event.commit(to, states.length);
+		return converted;
+	}
+
+	/**
+	 * @return the state (ordinal) to use in the given model for each state
+	 */
+	private static byte[] conversion(ILife model) {
+		var states = model.states();
+		var conversion = new byte[Regions.STATES.length];
+
+		// The first live state the model has, in case it doesn't have ALIVE
+		var fallback = CellState.ALIVE;
+
+		if (!states.contains(fallback))
+			fallback = states.stream().filter(s -> s != CellState.DEAD).findFirst().orElse(CellState.DEAD);
+
+		for (var state : Regions.STATES) {
+			var converted = states.contains(state) ? state
+			    : (state == CellState.DEAD) ? CellState.DEAD : fallback;
+			conversion[state.ordinal()] = (byte) converted.ordinal();
+		}
+
+		return conversion;
+	}
+}
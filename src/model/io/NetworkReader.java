@@ -0,0 +1,295 @@
+package model.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import model.Network;
+
+/**
+ * Reads a {@link Network} from a text file in either of these formats:
+ * <ul>
+ * <li>an edge list, with one edge per line as a pair of vertex numbers (any
+ * further columns, such as weights, are ignored)</li>
+ * <li>the algs4 {@code In} format read by {@code Graph(In)}: the number of
+ * vertices, then the number of edges, then the edges as above</li>
+ * </ul>
+ * Vertices are numbered from 0; an edge list has as many vertices as its
+ * highest number plus one. Blank lines and lines starting with {@code #} or
+ * {@code %} are skipped, and self-loops are dropped.
+ * <p>
+ * The file is streamed twice through a small buffer, first to count the degree
+ * of each vertex and then to fill in the neighbors, so the edges are never held
+ * in memory other than in the finished network.
+ * <p>
+ * Coordinates for display are read from a separate file, with a line of
+ * {@code vertex x y} (or just {@code x y}, for vertices in order) per vertex.
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+public final class NetworkReader {
+	/** Size of the read buffer */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private NetworkReader() {
+	}
+
+	/**
+	 * Reads a network from an edge list or algs4 graph file.
+	 *
+	 * @throws IOException if reading fails or the file is malformed
+	 */
+	public static Network read(Path edges) throws IOException {
+		var values = new double[2];
+		int[] degrees;
+		boolean header;
+
+		// First pass: count the degree of each vertex.
+		try (var lines = new Lines(edges)) {
+			int count = lines.next(values);
+
+			if (count < 0)
+				return new Network(new int[1], new int[0]);
+
+			header = (count == 1);
+
+			if (header) {
+				degrees = new int[lines.vertex(values[0]) + 1];
+
+				if (lines.next(values) != 1)
+					throw lines.error("expected the number of edges");
+
+				count = lines.next(values);
+			}
+			else
+				degrees = new int[1024];
+
+			for (; count >= 0; count = lines.next(values)) {
+				if (count < 2)
+					throw lines.error("expected an edge");
+
+				int from = lines.vertex(values[0]);
+				int to = lines.vertex(values[1]);
+
+				if (from == to)
+					continue;
+
+				if (header && Math.max(from, to) >= degrees.length - 1)
+					throw lines.error("vertex out of range");
+
+				if (Math.max(from, to) >= degrees.length - 1)
+					degrees = Arrays.copyOf(degrees,
+					    Math.max(2 * degrees.length, Math.max(from, to) + 2));
+
+				degrees[from]++;
+				degrees[to]++;
+			}
+		}
+
+		// Lay out the neighbor lists, then reuse the degrees as the next free slot
+		// in each.
+		int vertices = header ? degrees.length - 1 : highestVertex(degrees) + 1;
+		var offsets = new int[vertices + 1];
+		long total = 0;
+
+		for (int v = 0; v < vertices; v++) {
+			offsets[v] = (int) total;
+			total += degrees[v];
+			degrees[v] = offsets[v];
+
+			if (total > Integer.MAX_VALUE)
+				throw new IOException("Too many edges");
+		}
+
+		offsets[vertices] = (int) total;
+		var targets = new int[(int) total];
+
+		// Second pass: fill in the neighbors.
+		try (var lines = new Lines(edges)) {
+			if (header) {
+				lines.next(values);
+				lines.next(values);
+			}
+
+			while (lines.next(values) >= 0) {
+				int from = (int) values[0];
+				int to = (int) values[1];
+
+				if (from == to)
+					continue;
+
+				targets[degrees[from]++] = to;
+				targets[degrees[to]++] = from;
+			}
+		}
+
+		return new Network(offsets, targets);
+	}
+
+	/**
+	 * Reads display coordinates for the vertices of a network. Vertices that
+	 * aren't mentioned get none.
+	 *
+	 * @throws IOException if reading fails or the file is malformed
+	 */
+	public static Network readCoordinates(Path coordinates, Network network) throws IOException {
+		var xs = new float[network.vertices()];
+		var ys = new float[network.vertices()];
+		Arrays.fill(xs, Float.NaN);
+		Arrays.fill(ys, Float.NaN);
+
+		try (var lines = new Lines(coordinates)) {
+			var values = new double[3];
+			int next = 0; // vertex for lines without one
+
+			for (int count = lines.next(values); count >= 0; count = lines.next(values)) {
+				int vertex;
+				double x, y;
+
+				if (count == 2) {
+					vertex = next;
+					x = values[0];
+					y = values[1];
+				}
+				else if (count >= 3) {
+					vertex = lines.vertex(values[0]);
+					x = values[1];
+					y = values[2];
+				}
+				else
+					throw lines.error("expected coordinates");
+
+				if (vertex >= xs.length)
+					throw lines.error("vertex out of range");
+
+				xs[vertex] = (float) x;
+				ys[vertex] = (float) y;
+				next = vertex + 1;
+			}
+		}
+
+		return network.withCoordinates(xs, ys);
+	}
+
+	private static int highestVertex(int[] degrees) {
+		int v = degrees.length - 1;
+
+		while (v >= 0 && degrees[v] == 0)
+			v--;
+
+		return v;
+	}
+
+	/**
+	 * Splits a file into lines of numbers.
+	 */
+	private static final class Lines implements Closeable {
+		private final FileChannel in;
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		private final StringBuilder token = new StringBuilder();
+		private long lineNumber;
+
+		Lines(Path path) throws IOException {
+			this.in = FileChannel.open(path);
+			buffer.flip(); // start out empty
+		}
+
+		private int read() throws IOException {
+			while (!buffer.hasRemaining()) {
+				buffer.clear();
+				int n = in.read(buffer);
+				buffer.flip();
+
+				if (n < 0)
+					return -1;
+			}
+
+			return buffer.get() & 0xFF;
+		}
+
+		private static boolean isSeparator(int c) {
+			return c == ' ' || c == '\t' || c == '\r' || c == ',' || c == ';';
+		}
+
+		/**
+		 * Reads the next line that has any numbers on it.
+		 *
+		 * @param values filled in with as many of the numbers as fit
+		 * @return the number of numbers on the line, or -1 at the end of the file
+		 */
+		int next(double[] values) throws IOException {
+			for (int c = read(); c >= 0; c = read()) {
+				lineNumber++;
+
+				if (c == '#' || c == '%') {
+					while (c >= 0 && c != '\n')
+						c = read();
+
+					continue;
+				}
+
+				int count = 0;
+
+				while (c >= 0 && c != '\n') {
+					if (isSeparator(c)) {
+						c = read();
+						continue;
+					}
+
+					// Whole numbers are by far the most common, so skip parseDouble() for them.
+					long whole = 0;
+					boolean digits = true;
+					token.setLength(0);
+
+					for (; c >= 0 && c != '\n' && !isSeparator(c); c = read()) {
+						digits &= (c >= '0' && c <= '9') && token.length() < 18;
+						whole = 10 * whole + (c - '0');
+						token.append((char) c);
+					}
+
+					double value;
+
+					if (digits)
+						value = whole;
+					else
+						try {
+							value = Double.parseDouble(token.toString());
+						}
+						catch (NumberFormatException e) {
+							throw error("not a number: " + token);
+						}
+
+					if (count < values.length)
+						values[count] = value;
+
+					count++;
+				}
+
+				if (count > 0)
+					return count;
+			}
+
+			return -1;
+		}
+
+		int vertex(double value) throws IOException {
+			if (value < 0 || value >= Integer.MAX_VALUE - 1 || value != Math.floor(value))
+				throw error("not a vertex: " + value);
+
+			return (int) value;
+		}
+
+		IOException error(String message) {
+			return new IOException("Line " + lineNumber + ": " + message);
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+}
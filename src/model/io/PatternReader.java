@@ -0,0 +1,426 @@
+package model.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+import model.CellState;
+import model.ILife;
+
+/**
+ * Pastes patterns in the standard text formats into a model:
+ * <ul>
+ * <li>Run Length Encoded ({@code .rle}), including the multi-state letters
+ * {@code A}-{@code D}</li>
+ * <li>Plaintext ({@code .cells})</li>
+ * <li>Life 1.06 ({@code .lif})</li>
+ * </ul>
+ * The format is detected from the content, not the file name (Life 1.06 files
+ * must start with their {@code #Life 1.06} header line).
+ * <p>
+ * The input is parsed incrementally from a channel through a small fixed
+ * buffer, so even multi-megabyte patterns are never held in memory as text.
+ * Decoded cells are collected into bands of rows which are written with
+ * {@link ILife#setRegion}, rather than one {@link ILife#set} per cell.
+ * <p>
+ * Pasting only ever turns cells on: dead cells in the pattern leave the world
+ * untouched. The pattern wraps around the edges of the world like everything
+ * else, and anything larger than the world is clipped.
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+public final class PatternReader {
+	/** Size of the read buffer */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/** Number of pattern rows collected before they're written to the model */
+	private static final int BAND_ROWS = 64;
+
+	private static final Pattern RLE_HEADER = Pattern
+	    .compile("x\\s*=\\s*(\\d+)\\s*,\\s*y\\s*=\\s*(\\d+).*");
+
+	private static final byte ALIVE = (byte) CellState.ALIVE.ordinal();
+	private static final int MAX_STATE = CellState.values().length - 1;
+
+	/**
+	 * Some basic info about the pasted pattern.
+	 *
+	 * @param height     number of rows spanned by the pattern
+	 * @param width      number of columns spanned by the pattern
+	 * @param population number of (non-dead) cells in the pattern
+	 */
+	public record Summary(int height, int width, long population) {
+	}
+
+	private final ReadableByteChannel in;
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+	private final BandWriter out;
+
+	private PatternReader(ReadableByteChannel in, ILife model, int row, int col) {
+		this.in = in;
+		this.out = new BandWriter(model, row, col);
+		buffer.flip(); // start out empty
+	}
+
+	/**
+	 * Reads a pattern from the channel and pastes it into the model.
+	 *
+	 * @param row the world row where the top of the pattern goes (or where y = 0
+	 *            goes, for Life 1.06)
+	 * @param col the world column where the left of the pattern goes (or where x =
+	 *            0 goes, for Life 1.06)
+	 * @throws IOException if reading fails or the pattern is malformed
+	 */
+	public static Summary paste(ReadableByteChannel in, ILife model, int row, int col)
+	    throws IOException {
+		return new PatternReader(in, model, row, col).paste();
+	}
+
+	private Summary paste() throws IOException {
+		// Skip blank lines and sniff the format from the first character.
+		int ch;
+		while ((ch = peek()) == '\n' || ch == '\r' || ch == ' ' || ch == '\t')
+			read();
+
+		if (ch == '#') {
+			String firstLine = readLine();
+
+			if (firstLine.startsWith("#Life 1.06"))
+				readLife106();
+			else
+				readRle();
+		}
+		else if (ch == '!' || ch == '.' || ch == 'O' || ch == '*')
+			readPlaintext();
+		else
+			readRle();
+
+		out.flush();
+		return new Summary(out.maxRow + 1, out.maxCol + 1, out.population);
+	}
+
+	/**
+	 * RLE: optional {@code #} comment lines, an optional {@code x = m, y = n}
+	 * header, then {@code <count><tag>} items up to a terminating {@code !}.
+	 */
+	private void readRle() throws IOException {
+		int row = 0;
+		int col = 0;
+		int count = 0;
+		boolean lineStart = true;
+
+		for (int ch = read(); ch != -1 && ch != '!'; ch = read()) {
+			if (lineStart && ch == '#') {
+				skipLine();
+				continue;
+			}
+
+			if (lineStart && ch == 'x') {
+				var matcher = RLE_HEADER.matcher("x" + readLine());
+				if (matcher.matches())
+					out.reserve(Integer.parseInt(matcher.group(1)));
+				continue;
+			}
+
+			lineStart = (ch == '\n');
+
+			if (ch >= '0' && ch <= '9') {
+				count = 10 * count + (ch - '0');
+				continue;
+			}
+
+			int run = Math.max(count, 1);
+			count = 0;
+
+			switch (ch) {
+				case 'b', '.' -> col += run;
+				case 'o' -> {
+					out.put(row, col, run, ALIVE);
+					col += run;
+				}
+				case '$' -> {
+					row += run;
+					col = 0;
+				}
+				case '\n', '\r', ' ', '\t' -> {
+				}
+				default -> {
+					// Multi-state RLE uses A, B, C, ... for states 1, 2, 3, ...
+					if (ch < 'A' || ch > 'X')
+						throw new IOException("Unexpected '%c' in RLE pattern".formatted(ch));
+
+					out.put(row, col, run, (byte) Math.min(ch - 'A' + 1, MAX_STATE));
+					col += run;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Plaintext: {@code !} comment lines, then one line per row with {@code .}
+	 * for dead cells and {@code O} for live cells.
+	 */
+	private void readPlaintext() throws IOException {
+		int row = 0;
+		int col = 0;
+
+		for (int ch = read(); ch != -1; ch = read()) {
+			if (col == 0 && ch == '!') {
+				skipLine();
+				continue;
+			}
+
+			switch (ch) {
+				case 'O', '*' -> out.put(row, col++, 1, ALIVE);
+				case '\n' -> {
+					row++;
+					col = 0;
+				}
+				case '\r' -> {
+				}
+				default -> col++;
+			}
+		}
+	}
+
+	/**
+	 * Life 1.06: {@code #} comment lines, then one {@code x y} coordinate pair per
+	 * line for each live cell, in no particular order.
+	 * <p>
+	 * Since the rows aren't ordered, the coordinates are collected (packed into
+	 * longs) and sorted before being written.
+	 */
+	private void readLife106() throws IOException {
+		long[] cells = new long[1024];
+		int ncells = 0;
+		int minRow = Integer.MAX_VALUE;
+		int minCol = Integer.MAX_VALUE;
+
+		for (int ch = peek(); ch != -1; ch = peek()) {
+			if (ch == '#') {
+				skipLine();
+				continue;
+			}
+
+			String line = readLine().strip();
+			if (line.isEmpty())
+				continue;
+
+			String[] xy = line.split("\\s+");
+			int col;
+			int row;
+
+			try {
+				col = Integer.parseInt(xy[0]);
+				row = Integer.parseInt(xy[1]);
+			}
+			catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+				throw new IOException("Bad Life 1.06 line: " + line, e);
+			}
+
+			if (ncells == cells.length)
+				cells = Arrays.copyOf(cells, 2 * ncells);
+
+			cells[ncells++] = ((long) row << 32) | (col & 0xFFFFFFFFL);
+			minRow = Math.min(minRow, row);
+			minCol = Math.min(minCol, col);
+		}
+
+		if (ncells == 0)
+			return;
+
+		// Coordinates are relative to an origin that's usually near the middle.
+		out.shift(minRow, minCol);
+		Arrays.sort(cells, 0, ncells); // orders by row first, since rows are the high bits
+
+		for (int i = 0; i < ncells; i++)
+			out.put((int) (cells[i] >> 32) - minRow, (int) cells[i] - minCol, 1, ALIVE);
+	}
+
+	// ----------------
+	// Buffered input
+	// ----------------
+
+	/** @return the next byte without consuming it, or -1 at end of input */
+	private int peek() throws IOException {
+		while (!buffer.hasRemaining()) {
+			buffer.clear();
+			int n = in.read(buffer);
+			buffer.flip();
+
+			if (n == -1)
+				return -1;
+		}
+
+		return buffer.get(buffer.position()) & 0xFF;
+	}
+
+	/** @return the next byte, or -1 at end of input */
+	private int read() throws IOException {
+		int ch = peek();
+
+		if (ch != -1)
+			buffer.get();
+
+		return ch;
+	}
+
+	/** Consumes the remainder of the current line, including the line break. */
+	private void skipLine() throws IOException {
+		for (int ch = read(); ch != -1 && ch != '\n'; ch = read())
+			;
+	}
+
+	/**
+	 * Reads the remainder of the current line. Only use this for lines that are
+	 * known to be short (headers, coordinates).
+	 */
+	private String readLine() throws IOException {
+		var line = new StringBuilder();
+
+		for (int ch = read(); ch != -1 && ch != '\n'; ch = read())
+			if (ch != '\r')
+				line.append((char) ch);
+
+		return line.toString();
+	}
+
+	/**
+	 * Collects runs of cells for a band of rows at a time and then stamps them
+	 * onto the world with a single get/set region per (unwrapped) block.
+	 */
+	private static final class BandWriter {
+		final ILife model;
+		final int nrows;
+		final int ncols;
+		int originRow;
+		int originCol;
+
+		int width; // of the band, at most ncols
+		byte[] band; // 0 = untouched
+		byte[] scratch;
+		int bandTop; // pattern row of the first row of the band
+		int bandMinCol = Integer.MAX_VALUE;
+		int bandMaxCol = -1;
+
+		int maxRow = -1;
+		int maxCol = -1;
+		long population;
+
+		BandWriter(ILife model, int row, int col) {
+			this.model = model;
+			this.nrows = model.nrows();
+			this.ncols = model.ncols();
+			this.originRow = row;
+			this.originCol = col;
+			this.width = ncols;
+		}
+
+		/** Narrows the band to the pattern width, if that's known in advance. */
+		void reserve(int patternWidth) {
+			if (band == null)
+				width = Math.max(1, Math.min(patternWidth, ncols));
+		}
+
+		/** Moves the origin so that pattern coordinate (row, col) is at (0, 0). */
+		void shift(int row, int col) {
+			originRow += row;
+			originCol += col;
+		}
+
+		/**
+		 * Sets a horizontal run of cells. Rows must be given in nondecreasing order.
+		 */
+		void put(int row, int col, int length, byte state) {
+			if (row >= nrows)
+				return; // clipped
+
+			if (band == null)
+				band = new byte[BAND_ROWS * width];
+
+			while (row >= bandTop + BAND_ROWS) {
+				flush();
+				bandTop += BAND_ROWS;
+			}
+
+			// Grow the band if a row turns out wider than promised by a header.
+			int end = Math.min(col + length, ncols);
+			if (end > width) {
+				band = widen(band, width, ncols);
+				width = ncols;
+			}
+
+			if (col >= end)
+				return;
+
+			int offset = (row - bandTop) * width;
+			Arrays.fill(band, offset + col, offset + end, state);
+
+			bandMinCol = Math.min(bandMinCol, col);
+			bandMaxCol = Math.max(bandMaxCol, end - 1);
+			maxRow = Math.max(maxRow, row);
+			maxCol = Math.max(maxCol, end - 1);
+			population += end - col;
+		}
+
+		private static byte[] widen(byte[] band, int oldWidth, int newWidth) {
+			var wider = new byte[BAND_ROWS * newWidth];
+
+			for (int r = 0; r < BAND_ROWS; r++)
+				System.arraycopy(band, r * oldWidth, wider, r * newWidth, oldWidth);
+
+			return wider;
+		}
+
+		/** Writes the current band to the model and resets it. */
+		void flush() {
+			if (bandMaxCol < 0)
+				return; // nothing to write
+
+			int height = Math.min(BAND_ROWS, nrows - bandTop);
+			int top = Math.floorMod(originRow + bandTop, nrows);
+			int left = Math.floorMod(originCol + bandMinCol, ncols);
+			int span = bandMaxCol - bandMinCol + 1;
+
+			// Split into at most 4 blocks where the band wraps around the world.
+			int height1 = Math.min(height, nrows - top);
+			int span1 = Math.min(span, ncols - left);
+
+			stamp(top, left, 0, bandMinCol, height1, span1);
+			stamp(top, 0, 0, bandMinCol + span1, height1, span - span1);
+			stamp(0, left, height1, bandMinCol, height - height1, span1);
+			stamp(0, 0, height1, bandMinCol + span1, height - height1, span - span1);
+
+			Arrays.fill(band, (byte) 0);
+			bandMinCol = Integer.MAX_VALUE;
+			bandMaxCol = -1;
+		}
+
+		/**
+		 * Overlays a block of the band (starting at band row/col) onto the world
+		 * (starting at world row/col).
+		 */
+		private void stamp(int row, int col, int bandRow, int bandCol, int height, int span) {
+			if (height <= 0 || span <= 0)
+				return;
+
+			if (scratch == null || scratch.length < height * span)
+				scratch = new byte[BAND_ROWS * ncols];
+
+			model.getRegion(row, col, height, span, scratch);
+
+			for (int r = 0; r < height; r++) {
+				int from = (bandRow + r) * width + bandCol;
+
+				for (int c = 0; c < span; c++)
+					if (band[from + c] != 0)
+						scratch[r * span + c] = band[from + c];
+			}
+
+			model.setRegion(row, col, height, span, scratch);
+		}
+	}
+}
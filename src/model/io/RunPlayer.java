@@ -0,0 +1,333 @@
+package model.io;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import model.CellState;
+import model.ILife;
+
+/**
+ * Plays back a recording made by {@link RunRecorder}.
+ * <p>
+ * Playback only decodes the stored changes, so it costs nothing but I/O and
+ * decompression (plus whatever the callback does), however expensive the model
+ * that made the recording. Seeking uses the chunk index at the end of the file
+ * to jump straight to the nearest preceding keyframe.
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+public final class RunPlayer implements Closeable {
+	private static final CellState[] STATES = CellState.values();
+
+	/**
+	 * An entry of the index.
+	 *
+	 * @param generation generation of the keyframe that starts the chunk
+	 * @param deltas     number of generations that follow the keyframe
+	 * @param offset     position of the chunk in the file
+	 */
+	private record Chunk(long generation, int deltas, long offset) {
+	}
+
+	private final FileChannel channel;
+	private final String modelClass;
+	private final int nrows;
+	private final int ncols;
+	private final Chunk[] chunks;
+
+	private final byte[] current; // the world as of the current generation
+	private final byte[] keyframe; // scratch space
+	private long generation = -1; // nothing has been played yet
+
+	private int chunk = -1; // index of the chunk being played
+	private int deltasLeft; // remaining deltas in the chunk
+	private DataInputStream in;
+	private final Inflater inflater = new Inflater(); // reset for each chunk
+
+	private RunPlayer(FileChannel channel, String modelClass, int nrows, int ncols,
+	    Chunk[] chunks) {
+		this.channel = channel;
+		this.modelClass = modelClass;
+		this.nrows = nrows;
+		this.ncols = ncols;
+		this.chunks = chunks;
+		this.current = new byte[nrows * ncols];
+		this.keyframe = new byte[nrows * ncols];
+	}
+
+	/**
+	 * Opens a recording. Nothing is played until {@link #next} or {@link #seek} is
+	 * called, and until then the world is assumed to be all DEAD.
+	 *
+	 * @throws IOException if the file can't be read or is not a recording
+	 */
+	public static RunPlayer open(Path path) throws IOException {
+		var channel = FileChannel.open(path, StandardOpenOption.READ);
+
+		try {
+			var header = new DataInputStream(Channels.newInputStream(channel));
+
+			if (header.readInt() != RunRecorder.MAGIC)
+				throw new IOException("Not a recording: " + path);
+
+			int version = header.readInt();
+			if (version != RunRecorder.VERSION)
+				throw new IOException("Unsupported recording version: " + version);
+
+			int nrows = header.readInt();
+			int ncols = header.readInt();
+			int nameLength = header.readInt();
+
+			// The sizes come from the file, so check them before trusting them.
+			if (nrows < 0 || ncols < 0 || (long) nrows * ncols > Integer.MAX_VALUE)
+				throw new IOException("Recording has invalid dimensions: %dx%d".formatted(nrows, ncols));
+
+			long headerSize = 5 * Integer.BYTES + (long) nameLength;
+			var trailer = ByteBuffer.allocate(Long.BYTES + Integer.BYTES);
+
+			if (nameLength < 0 || headerSize + trailer.capacity() > channel.size())
+				throw new IOException("Recording is truncated (model name): " + path);
+
+			var name = new byte[nameLength];
+			header.readFully(name);
+
+			// The trailer points to the index.
+			channel.read(trailer, channel.size() - trailer.capacity());
+			trailer.flip();
+			long indexOffset = trailer.getLong();
+
+			if (trailer.getInt() != RunRecorder.MAGIC)
+				throw new IOException("Recording is incomplete (no index): " + path);
+
+			long indexEnd = channel.size() - trailer.capacity();
+
+			if (indexOffset < headerSize || indexOffset + Integer.BYTES > indexEnd)
+				throw new IOException("Recording has an invalid index offset: " + indexOffset);
+
+			channel.position(indexOffset);
+			var index = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+			int count = index.readInt();
+			int entrySize = 2 * Long.BYTES + Integer.BYTES;
+
+			if (count < 1 || count > (indexEnd - indexOffset - Integer.BYTES) / entrySize)
+				throw new IOException("Recording has an invalid index (%d chunks)".formatted(count));
+
+			var chunks = new Chunk[count];
+
+			for (int i = 0; i < chunks.length; i++) {
+				chunks[i] = new Chunk(index.readLong(), index.readInt(), index.readLong());
+
+				if (chunks[i].deltas() < 0 || chunks[i].offset() < headerSize
+				    || chunks[i].offset() >= indexOffset)
+					throw new IOException("Recording has an invalid index entry: " + chunks[i]);
+			}
+
+			return new RunPlayer(channel, new String(name, StandardCharsets.UTF_8), nrows, ncols,
+			    chunks);
+		}
+		catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the fully qualified class name of the model that was recorded
+	 */
+	public String modelClass() {
+		return modelClass;
+	}
+
+	public int nrows() {
+		return nrows;
+	}
+
+	public int ncols() {
+		return ncols;
+	}
+
+	/** @return the generation that was played last, or -1 if none */
+	public long generation() {
+		return generation;
+	}
+
+	/** @return the last generation in the recording */
+	public long lastGeneration() {
+		var last = chunks[chunks.length - 1];
+		return last.generation() + last.deltas();
+	}
+
+	/**
+	 * Plays the next generation.
+	 *
+	 * @param action invoked for each cell whose state changed
+	 * @return {@code false} if the end of the recording has been reached
+	 */
+	public boolean next(ILife.Callback action) throws IOException {
+		// A new chunk picks up where the last one left off (although its keyframe
+		// may differ, if the world was edited during the recording).
+		while (deltasLeft == 0 && chunk + 1 < chunks.length) {
+			boolean started = (generation >= 0);
+			openChunk(chunk + 1, action);
+
+			if (!started)
+				return true; // just show the first keyframe
+		}
+
+		if (deltasLeft == 0)
+			return false;
+
+		readDelta(action);
+		return true;
+	}
+
+	/**
+	 * Jumps to the given generation (clamped to the recording).
+	 *
+	 * @param action invoked for each cell whose state changed
+	 */
+	public void seek(long target, ILife.Callback action) throws IOException {
+		target = Math.clamp(target, 0, lastGeneration());
+
+		// Find the last chunk starting at or before the target.
+		int lo = 0;
+		int hi = chunks.length - 1;
+		while (lo < hi) {
+			int mid = (lo + hi + 1) >>> 1;
+
+			if (chunks[mid].generation() <= target)
+				lo = mid;
+			else
+				hi = mid - 1;
+		}
+
+		// No need to go back to the keyframe if the target is just ahead.
+		if (lo != chunk || target < generation)
+			openChunk(lo, action);
+
+		while (generation < target && deltasLeft > 0)
+			readDelta(action);
+	}
+
+	@Override
+	public void close() throws IOException {
+		inflater.end();
+		channel.close();
+	}
+
+	/** Starts playing a chunk by showing its keyframe. */
+	private void openChunk(int i, ILife.Callback action) throws IOException {
+		channel.position(chunks[i].offset());
+		var raw = new DataInputStream(Channels.newInputStream(channel));
+		raw.readLong(); // generation
+		raw.readInt(); // deltas
+		int size = raw.readInt();
+
+		// The previous chunk's stream is just dropped: closing it would close the
+		// channel, and the inflater (which is all it holds) is reused.
+		InputStream compressed = new BufferedInputStream(new LimitedStream(raw, size));
+		inflater.reset();
+		in = new DataInputStream(new InflaterInputStream(compressed, inflater));
+		in.readFully(keyframe);
+
+		// Only notify about cells that differ from what's currently shown.
+		for (int cell = 0; cell < current.length; cell++)
+			if (current[cell] != keyframe[cell]) {
+				if (keyframe[cell] < 0 || keyframe[cell] >= STATES.length)
+					throw new IOException("Recording is corrupt (state %d)".formatted(keyframe[cell]));
+
+				current[cell] = keyframe[cell];
+				action.invoke(cell / ncols, cell % ncols, STATES[keyframe[cell]]);
+			}
+
+		chunk = i;
+		deltasLeft = chunks[i].deltas();
+		generation = chunks[i].generation();
+	}
+
+	private void readDelta(ILife.Callback action) throws IOException {
+		int count = readVarint(in);
+		int cell = 0;
+
+		for (int i = 0; i < count; i++) {
+			cell += readVarint(in);
+			byte state = in.readByte();
+
+			if (cell < 0 || cell >= current.length || state < 0 || state >= STATES.length)
+				throw new IOException("Recording is corrupt (cell %d, state %d)".formatted(cell, state));
+
+			if (current[cell] != state) {
+				current[cell] = state;
+				action.invoke(cell / ncols, cell % ncols, STATES[state]);
+			}
+		}
+
+		deltasLeft--;
+		generation++;
+	}
+
+	/** Reads an unsigned LEB128 varint. */
+	private static int readVarint(InputStream in) throws IOException {
+		int value = 0;
+
+		for (int shift = 0;; shift += 7) {
+			int b = in.read();
+
+			if (b == -1)
+				throw new EOFException();
+
+			value |= (b & 0x7F) << shift;
+
+			if ((b & 0x80) == 0)
+				return value;
+		}
+	}
+
+	/**
+	 * Keeps the inflater from reading past the end of a chunk.
+	 */
+	private static final class LimitedStream extends InputStream {
+		private final InputStream in;
+		private long remaining;
+
+		LimitedStream(InputStream in, long limit) {
+			this.in = in;
+			this.remaining = limit;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (remaining == 0)
+				return -1;
+
+			remaining--;
+			return in.read();
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (remaining == 0)
+				return -1;
+
+			int n = in.read(b, off, (int) Math.min(len, remaining));
+
+			if (n > 0)
+				remaining -= n;
+
+			return n;
+		}
+	}
+}
@@ -0,0 +1,341 @@
+package model.io;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import model.CellState;
+import model.ILife;
+
+/**
+ * Records every generation of a run to a file, for later playback with
+ * {@link RunPlayer}.
+ * <p>
+ * Use the recorder as (or from) the callback passed to {@link ILife#step}, and
+ * call {@link #endGeneration()} after each step. The changes are handed off to
+ * a background thread, which does all of the encoding, compression and I/O.
+ * <p>
+ * The file is a sequence of independently compressed chunks, each made of a
+ * keyframe (the whole world) followed by the deltas for up to
+ * {@code keyframeInterval} generations. An index of the chunks is written at
+ * the end of the file, so that a player can seek to any generation by
+ * decompressing a single chunk. The layout (big-endian) is:
+ *
+ * <pre>
+ *   header:  int magic ("LRUN"), int version, int nrows, int ncols,
+ *            int length of the model class name, followed by its UTF-8 bytes
+ *   chunks:  long first generation, int number of deltas, int compressed size,
+ *            then deflated: byte[nrows * ncols] keyframe,
+ *                           then per delta: varint count, count * (varint gap, byte state)
+ *   index:   int number of chunks, then per chunk:
+ *            long first generation, int number of deltas, long file offset
+ *   trailer: long index offset, int magic ("LRUN")
+ * </pre>
+ *
+ * Within a delta, changed cells are sorted by (row-major) index and each is
+ * stored as the gap from the previous index plus its new state.
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+public final class RunRecorder implements ILife.Callback, Closeable {
+	static final int MAGIC = 0x4C52554E; // "LRUN"
+	static final int VERSION = 1;
+
+	/** Maximum number of generations waiting for the writer */
+	private static final int QUEUE_CAPACITY = 256;
+
+	/** Sent to the writer thread to finish up */
+	private static final Message END = new Message(null, 0, null);
+
+	/**
+	 * A unit of work for the writer thread: either the packed
+	 * {@code index << 3 | state} changes of one generation, or a keyframe.
+	 */
+	private record Message(int[] changes, int count, byte[] keyframe) {
+	}
+
+	private final int nrows;
+	private final int ncols;
+	private final int keyframeInterval;
+	private final BlockingQueue<Message> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+	private final Thread writer;
+	private volatile IOException failure;
+
+	// Changes of the generation in progress (only touched by the caller's thread)
+	private int[] changes = new int[256];
+	private int count;
+
+	// Everything below is only touched by the writer thread.
+	private final FileChannel channel;
+	private final DataOutputStream file;
+	private long offset;
+	private final byte[] current; // mirror of the world
+	private final ArrayList<long[]> index = new ArrayList<>(); // {generation, deltas, offset}
+	private long generation;
+	private long chunkGeneration;
+	private int chunkDeltas;
+	private ByteArrayOutputStream chunkBytes = new ByteArrayOutputStream();
+	private final Deflater deflater = new Deflater(Deflater.BEST_SPEED); // reset for each chunk
+	private DataOutputStream chunk;
+	private int[] sorted = new int[256];
+
+	/**
+	 * Starts a recording of the model, beginning with its current state as
+	 * generation 0.
+	 *
+	 * @param keyframeInterval maximum number of generations per chunk
+	 */
+	public RunRecorder(ILife model, Path path, int keyframeInterval) throws IOException {
+		this.nrows = model.nrows();
+		this.ncols = model.ncols();
+		this.keyframeInterval = keyframeInterval;
+		this.current = new byte[nrows * ncols];
+
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+		    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+		this.file = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+
+		// Until the writer takes over, the channel is ours to close if anything fails.
+		try {
+			byte[] name = model.getClass().getName().getBytes(StandardCharsets.UTF_8);
+			file.writeInt(MAGIC);
+			file.writeInt(VERSION);
+			file.writeInt(nrows);
+			file.writeInt(ncols);
+			file.writeInt(name.length);
+			file.write(name);
+			offset = 5 * Integer.BYTES + name.length;
+
+			var states = new byte[nrows * ncols];
+			model.getRegion(0, 0, nrows, ncols, states);
+			queue.add(new Message(null, 0, states));
+		}
+		catch (IOException | RuntimeException e) {
+			deflater.end();
+			channel.close();
+			throw e;
+		}
+
+		writer = new Thread(this::drain, "run-recorder");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/** @return the number of rows of the recorded world (which can't change) */
+	public int nrows() {
+		return nrows;
+	}
+
+	/** @return the number of columns of the recorded world (which can't change) */
+	public int ncols() {
+		return ncols;
+	}
+
+	/**
+	 * Records a cell change in the generation in progress.
+	 */
+	@Override
+	public void invoke(int row, int col, CellState state) {
+		if (count == changes.length)
+			changes = Arrays.copyOf(changes, 2 * count);
+
+		changes[count++] = (row * ncols + col) << 3 | state.ordinal();
+	}
+
+	/**
+	 * Hands off the generation in progress to the writer. This blocks if the
+	 * writer has fallen too far behind.
+	 *
+	 * @throws IOException if the writer has failed
+	 */
+	public void endGeneration() throws IOException {
+		send(new Message(changes, count, null));
+		changes = new int[Math.max(count, 16)];
+		count = 0;
+	}
+
+	/**
+	 * Starts a new chunk from the model's current state, without advancing the
+	 * generation. Use this whenever the world is changed other than by stepping.
+	 *
+	 * @throws IOException if the writer has failed
+	 */
+	public void keyframe(ILife model) throws IOException {
+		assert model.nrows() == nrows && model.ncols() == ncols;
+
+		var states = new byte[current.length];
+		model.getRegion(0, 0, nrows, ncols, states);
+		count = 0;
+		send(new Message(null, 0, states));
+	}
+
+	private void send(Message message) throws IOException {
+		try {
+			// Keep checking on the writer, in case it dies while we wait.
+			do {
+				if (failure != null)
+					throw failure;
+			} while (!queue.offer(message, 100, TimeUnit.MILLISECONDS));
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while recording", e);
+		}
+	}
+
+	/**
+	 * Waits for the writer to finish the backlog, then writes the index and
+	 * closes the file.
+	 */
+	@Override
+	public void close() throws IOException {
+		send(END);
+
+		try {
+			writer.join();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while finishing recording", e);
+		}
+
+		if (failure != null)
+			throw failure;
+	}
+
+	// ---------------------------
+	// Writer thread
+	// ---------------------------
+
+	private void drain() {
+		try {
+			for (var message = queue.take(); message != END; message = queue.take()) {
+				if (message.keyframe() != null)
+					startChunk(message.keyframe());
+				else
+					writeDelta(message.changes(), message.count());
+			}
+
+			finishChunk();
+			writeIndex();
+		}
+		catch (IOException e) {
+			failure = e;
+		}
+		catch (InterruptedException e) {
+			failure = new IOException("Recorder interrupted", e);
+		}
+		finally {
+			deflater.end();
+
+			try {
+				channel.close();
+			}
+			catch (IOException e) {
+				if (failure == null)
+					failure = e;
+			}
+		}
+	}
+
+	private void startChunk(byte[] keyframe) throws IOException {
+		finishChunk();
+
+		System.arraycopy(keyframe, 0, current, 0, current.length);
+		chunkGeneration = generation;
+		chunkDeltas = 0;
+		chunkBytes.reset();
+		deflater.reset();
+		chunk = new DataOutputStream(new DeflaterOutputStream(chunkBytes, deflater));
+		chunk.write(current);
+	}
+
+	private void writeDelta(int[] changes, int count) throws IOException {
+		if (chunkDeltas == keyframeInterval)
+			startChunk(current.clone());
+
+		// Apply the changes in order (so the last one wins), then sort and dedupe.
+		if (sorted.length < count)
+			sorted = new int[changes.length];
+
+		for (int i = 0; i < count; i++) {
+			int cell = changes[i] >>> 3;
+			current[cell] = (byte) (changes[i] & 7);
+			sorted[i] = cell;
+		}
+
+		Arrays.sort(sorted, 0, count);
+
+		int unique = 0;
+		for (int i = 0; i < count; i++)
+			if (i == 0 || sorted[i] != sorted[i - 1])
+				sorted[unique++] = sorted[i];
+
+		writeVarint(chunk, unique);
+
+		int previous = 0;
+		for (int i = 0; i < unique; i++) {
+			writeVarint(chunk, sorted[i] - previous);
+			chunk.writeByte(current[sorted[i]]);
+			previous = sorted[i];
+		}
+
+		chunkDeltas++;
+		generation++;
+	}
+
+	private void finishChunk() throws IOException {
+		if (chunk == null)
+			return;
+
+		chunk.close(); // finishes the deflater (but doesn't end it, since it's ours)
+
+		index.add(new long[] { chunkGeneration, chunkDeltas, offset });
+		file.writeLong(chunkGeneration);
+		file.writeInt(chunkDeltas);
+		file.writeInt(chunkBytes.size());
+		chunkBytes.writeTo(file);
+		offset += Long.BYTES + 2 * Integer.BYTES + chunkBytes.size();
+		chunk = null;
+	}
+
+	private void writeIndex() throws IOException {
+		file.writeInt(index.size());
+
+		for (long[] entry : index) {
+			file.writeLong(entry[0]);
+			file.writeInt((int) entry[1]);
+			file.writeLong(entry[2]);
+		}
+
+		file.writeLong(offset);
+		file.writeInt(MAGIC);
+		file.flush();
+	}
+
+	/** Writes an unsigned LEB128 varint. */
+	private static void writeVarint(OutputStream out, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+
+		out.write(value);
+	}
+}
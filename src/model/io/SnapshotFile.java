@@ -0,0 +1,219 @@
+package model.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import model.CellState;
+import model.ILife;
+
+/**
+ * A binary checkpoint of an {@link ILife} world.
+ * <p>
+ * The file layout (big-endian) is:
+ *
+ * <pre>
+ *   int     magic number ("LIFE")
+ *   int     format version
+ *   int     nrows
+ *   int     ncols
+ *   int     length of the model class name, followed by its UTF-8 bytes
+ *   int     number of bit planes
+ *   int     size of the model-specific extras, in bytes
+ *   ...     padding up to an 8-byte boundary
+ *   long[]  one bit plane per non-DEAD CellState, ceil(nrows * ncols / 64) words each
+ *   byte[]  model-specific extras (see ILife#saveExtras)
+ * </pre>
+ *
+ * Cell {@code i} (row-major) of a plane is bit {@code i % 64} of word
+ * {@code i / 64}. A cell that is not set in any plane is DEAD.
+ * <p>
+ * Both directions go through memory-mapped channels, and the world is copied in
+ * and out of the model with {@link ILife#getRegion} / {@link ILife#setRegion},
+ * so saving and loading never make a call into the model per cell.
+ *
+ * @author Paul Nguyen
+ * @author Tommy Collier
+ */
+public final class SnapshotFile {
+	private static final int MAGIC = 0x4C494645; // "LIFE"
+	private static final int VERSION = 1;
+
+	/** DEAD is implied by the absence of any other state. */
+	private static final int NUM_PLANES = CellState.values().length - 1;
+
+	private final String modelClass;
+	private final int nrows;
+	private final int ncols;
+	private final byte[] states; // row-major ordinals
+	private final ByteBuffer extras;
+
+	private SnapshotFile(String modelClass, int nrows, int ncols, byte[] states,
+	    ByteBuffer extras) {
+		this.modelClass = modelClass;
+		this.nrows = nrows;
+		this.ncols = ncols;
+		this.states = states;
+		this.extras = extras;
+	}
+
+	/**
+	 * @return the fully qualified class name of the model that was saved
+	 */
+	public String modelClass() {
+		return modelClass;
+	}
+
+	public int nrows() {
+		return nrows;
+	}
+
+	public int ncols() {
+		return ncols;
+	}
+
+	/**
+	 * Writes the current state of the model to the given file, replacing it if it
+	 * already exists.
+	 */
+	public static void save(ILife model, Path path) throws IOException {
+		int nrows = model.nrows();
+		int ncols = model.ncols();
+		int ncells = nrows * ncols;
+		int words = (ncells + 63) >>> 6;
+
+		var states = new byte[ncells];
+		model.getRegion(0, 0, nrows, ncols, states);
+
+		// Split the states into one bit plane per non-DEAD state, in a single pass.
+		var planes = new long[NUM_PLANES][words];
+
+		for (int i = 0; i < ncells; i++) {
+			int state = states[i];
+
+			if (state != 0)
+				planes[state - 1][i >>> 6] |= 1L << i; // shift is implicitly (mod 64)
+		}
+
+		byte[] name = model.getClass().getName().getBytes(StandardCharsets.UTF_8);
+		int headerSize = align(7 * Integer.BYTES + name.length);
+		int extrasSize = model.extrasSize();
+		long fileSize = headerSize + (long) NUM_PLANES * words * Long.BYTES + extrasSize;
+
+		try (var channel = FileChannel.open(path, StandardOpenOption.CREATE,
+		    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+		    StandardOpenOption.WRITE)) {
+			MappedByteBuffer buffer = channel.map(MapMode.READ_WRITE, 0, fileSize);
+
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(nrows).putInt(ncols);
+			buffer.putInt(name.length).put(name);
+			buffer.putInt(NUM_PLANES).putInt(extrasSize);
+			buffer.position(headerSize);
+
+			LongBuffer longs = buffer.asLongBuffer();
+			for (var plane : planes)
+				longs.put(plane);
+
+			buffer.position(headerSize + NUM_PLANES * words * Long.BYTES);
+			model.saveExtras(buffer);
+			assert buffer.position() == fileSize : "extrasSize() doesn't match saveExtras()";
+
+			buffer.force();
+		}
+	}
+
+	/**
+	 * Reads a snapshot previously written by {@link #save}. Use {@link #restore}
+	 * to apply it to a model.
+	 *
+	 * @throws IOException if the file can't be read, is not a snapshot or is cut short
+	 */
+	public static SnapshotFile load(Path path) throws IOException {
+		try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+
+			if (buffer.remaining() < 7 * Integer.BYTES || buffer.getInt() != MAGIC)
+				throw new IOException("Not a snapshot file: " + path);
+
+			int version = buffer.getInt();
+			if (version != VERSION)
+				throw new IOException("Unsupported snapshot version: " + version);
+
+			int nrows = buffer.getInt();
+			int ncols = buffer.getInt();
+			int nameLength = buffer.getInt();
+
+			// The sizes come from the file, so check them before trusting them.
+			if (nrows < 0 || ncols < 0 || (long) nrows * ncols > Integer.MAX_VALUE)
+				throw new IOException("Snapshot has invalid dimensions: %dx%d".formatted(nrows, ncols));
+
+			if (nameLength < 0 || nameLength > buffer.remaining() - 2 * Integer.BYTES)
+				throw new IOException("Snapshot is truncated (model name): " + path);
+
+			var name = new byte[nameLength];
+			buffer.get(name);
+			int numPlanes = buffer.getInt();
+			int extrasSize = buffer.getInt();
+
+			if (numPlanes < 0 || numPlanes > NUM_PLANES)
+				throw new IOException("Snapshot has more states than are known: " + numPlanes);
+
+			int ncells = nrows * ncols;
+			int words = (ncells + 63) >>> 6;
+			long planesStart = align(buffer.position());
+			long extrasStart = planesStart + (long) numPlanes * words * Long.BYTES;
+
+			if (extrasSize < 0 || extrasStart + extrasSize > buffer.limit())
+				throw new IOException("Snapshot is truncated (cells or extras): " + path);
+
+			buffer.position((int) planesStart);
+			var states = new byte[ncells]; // all DEAD
+			var plane = new long[words];
+			LongBuffer longs = buffer.asLongBuffer();
+
+			// Only the set bits of each plane need to be visited.
+			for (int p = 0; p < numPlanes; p++) {
+				longs.get(plane);
+
+				for (int w = 0; w < words; w++)
+					for (long bits = plane[w]; bits != 0; bits &= bits - 1)
+						states[(w << 6) + Long.numberOfTrailingZeros(bits)] = (byte) (p + 1);
+			}
+
+			// Copy the extras out so that the mapping isn't kept alive.
+			buffer.position((int) extrasStart);
+			var extras = ByteBuffer.allocate(extrasSize);
+			extras.put(buffer.limit(buffer.position() + extrasSize)).flip();
+
+			return new SnapshotFile(new String(name, StandardCharsets.UTF_8), nrows, ncols,
+			    states, extras);
+		}
+	}
+
+	/**
+	 * Overwrites the state of the model with this snapshot. The model must
+	 * already have the same dimensions as the snapshot (and should be of the same
+	 * class, if the snapshot has any extras).
+	 */
+	public void restore(ILife model) {
+		if (model.nrows() != nrows || model.ncols() != ncols)
+			throw new IllegalArgumentException("Snapshot is %dx%d, but model is %dx%d"
+			    .formatted(nrows, ncols, model.nrows(), model.ncols()));
+
+		model.setRegion(0, 0, nrows, ncols, states);
+
+		if (extras.hasRemaining() && model.getClass().getName().equals(modelClass))
+			model.loadExtras(extras.duplicate());
+	}
+
+	/** Rounds up to the next multiple of 8 (for aligned bit planes). */
+	private static int align(int offset) {
+		return (offset + 7) & ~7;
+	}
+}
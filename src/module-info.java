@@ -2,9 +2,13 @@ open module lifeapp {
 	exports application;
 	exports application.component;
 	exports model;
+	exports model.io;
 
 	requires transitive javafx.controls;
 	requires transitive javafx.fxml;
 
 	requires transitive algs4_modular;
+
+	requires jdk.jfr;        // for custom Flight Recorder events
+	requires jdk.management; // for allocation tracking in the performance overlay
 }
\ No newline at end of file